@@ -0,0 +1,96 @@
+package com.example.footballbot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.chat.Chat;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.api.objects.User;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizer del CommandRouter e dispatch di FootballBot.consume
+ * per i comandi che non chiamano l'API (nessuna rete: il client Telegram è finto)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark {
+
+    @Param({"/ping", "/unknown \"x\"", "/follow"})
+    public String text;
+
+    private FootballBot bot;
+    private Update update;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DatabaseHelper.initDatabase();
+        bot = new FootballBot(noOpClient());
+        update = update(42L, text);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bot.shutdown();
+        DatabaseHelper.shutdown();
+    }
+
+    @Benchmark
+    public void consume() {
+        bot.consume(update);
+    }
+
+    @Benchmark
+    public CommandRouter.Parsed parseOneArgument() {
+        return FootballBot.ROUTER.parse("/topteams \"Premier League\"");
+    }
+
+    @Benchmark
+    public CommandRouter.Parsed parseTwoArguments() {
+        return FootballBot.ROUTER.parse("/form@FootballBot \"Manchester United\" \"Premier League\"");
+    }
+
+    static Update update(long chatId, String text) {
+        Chat chat = new Chat(chatId, "private");
+        User from = new User(chatId, "bench", false);
+        from.setUserName("bench");
+
+        Message message = new Message();
+        message.setMessageId(1);
+        message.setChat(chat);
+        message.setFrom(from);
+        message.setText(text);
+
+        Update update = new Update();
+        update.setMessage(message);
+        return update;
+    }
+
+    // Client che "invia" subito ogni messaggio senza toccare la rete
+    static TelegramClient noOpClient() {
+        return (TelegramClient) Proxy.newProxyInstance(TelegramClient.class.getClassLoader(),
+                new Class<?>[]{TelegramClient.class},
+                (proxy, method, args) -> method.getReturnType() == CompletableFuture.class
+                        ? CompletableFuture.completedFuture(null)
+                        : null);
+    }
+}
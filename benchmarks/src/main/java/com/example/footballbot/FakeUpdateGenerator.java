@@ -0,0 +1,77 @@
+package com.example.footballbot;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera update Telegram finti con un mix di comandi verosimile, distribuiti
+ * su un certo numero di chat
+ */
+public class FakeUpdateGenerator {
+
+    private record WeightedCommand(String text, int weight) {}
+
+    // Mix di una giornata di campionato: classifica e forma sono i più richiesti
+    private static final List<WeightedCommand> MIX = List.of(
+            new WeightedCommand("/topteams \"Premier League\"", 20),
+            new WeightedCommand("/form \"Arsenal\" \"Premier League\"", 15),
+            new WeightedCommand("/form \"Spurs\"", 5),
+            new WeightedCommand("/today \"Premier League\"", 10),
+            new WeightedCommand("/today", 5),
+            new WeightedCommand("/week", 3),
+            new WeightedCommand("/nextmatch \"Premier League\"", 10),
+            new WeightedCommand("/last \"Premier League\"", 10),
+            new WeightedCommand("/relegation \"Premier League\"", 5),
+            new WeightedCommand("/h2h \"Arsenal\" \"Chelsea\"", 3),
+            new WeightedCommand("/season \"Arsenal\"", 3),
+            new WeightedCommand("/team \"Arsenal\"", 5),
+            new WeightedCommand("/league \"Premier League\"", 3),
+            new WeightedCommand("/stadium \"Emirates\"", 3),
+            new WeightedCommand("/leagues", 3),
+            new WeightedCommand("/ping", 4),
+            new WeightedCommand("/start", 2));
+
+    private static final int TOTAL_WEIGHT = MIX.stream().mapToInt(WeightedCommand::weight).sum();
+
+    private final int chats;
+    private final AtomicInteger updateIds = new AtomicInteger();
+
+    public FakeUpdateGenerator(int chats) {
+        this.chats = Math.max(1, chats);
+    }
+
+    /** Testo di un comando estratto secondo i pesi del mix */
+    public String nextCommand() {
+        int r = ThreadLocalRandom.current().nextInt(TOTAL_WEIGHT);
+        for (WeightedCommand c : MIX) {
+            r -= c.weight();
+            if (r < 0) return c.text();
+        }
+        return MIX.get(0).text();
+    }
+
+    public Update next() {
+        long chatId = 1_000_000L + ThreadLocalRandom.current().nextInt(chats);
+        Update update = CommandParsingBenchmark.update(chatId, nextCommand());
+        update.setUpdateId(updateIds.incrementAndGet());
+        return update;
+    }
+
+    /** Un blocco di update come quello restituito da una getUpdates */
+    public List<Update> batch(int size) {
+        List<Update> updates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            updates.add(next());
+        }
+        return updates;
+    }
+
+    /** Comandi presenti nel mix (senza parametri) */
+    public static List<String> commands() {
+        return MIX.stream().map(c -> c.text().split("\\s+", 2)[0]).distinct().toList();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.footballbot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Risposte football-data.org registrate (src/main/resources/fixtures) e dati sintetici
+ * costruiti a partire da esse
+ */
+final class Fixtures {
+
+    static final int PREMIER_LEAGUE = 2021;
+    static final int ARSENAL = 57;
+
+    // Suffissi per generare squadre verosimili oltre le 20 registrate
+    private static final String[] PREFIXES = {"FC", "AC", "Real", "Sporting", "Athletic", "Dynamo", "Union", "Racing"};
+    private static final String[] PLACES = {"Northbridge", "Eastfield", "Westham", "Southport", "Kingsbury",
+            "Ashford", "Riverside", "Lakeview", "Hillcrest", "Oakmont", "Fairhaven", "Stonebridge", "Millbrook"};
+
+    private Fixtures() {
+    }
+
+    static String load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) throw new IllegalStateException("Fixture mancante: " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static <T> T parse(JsonStreams.Parser<T> parser, String json) {
+        try {
+            return parser.read(new StringReader(json));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Le 20 squadre registrate della Premier League più squadre generate fino a count
+     */
+    static JsonStreams.TeamList teams(int count) {
+        List<JsonStreams.Team> recorded = parse(JsonStreams.TEAMS, load("pl_teams.json")).teams();
+        List<JsonStreams.Team> teams = new ArrayList<>(count);
+        for (int i = 0; i < count && i < recorded.size(); i++) {
+            teams.add(recorded.get(i));
+        }
+        for (int i = teams.size(); i < count; i++) {
+            String place = PLACES[i % PLACES.length] + " " + (i / PLACES.length);
+            String name = PREFIXES[i % PREFIXES.length] + " " + place;
+            teams.add(new JsonStreams.Team(100_000 + i, name, place, "T" + i, place + " Arena", 1900 + i % 100,
+                    List.of()));
+        }
+        return new JsonStreams.TeamList(teams);
+    }
+}
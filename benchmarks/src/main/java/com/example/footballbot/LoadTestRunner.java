@@ -0,0 +1,154 @@
+package com.example.footballbot;
+
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Test di carico: il bot riceve update finti a ritmo costante, l'API è il
+ * MockFootballDataServer e Telegram un client finto che accetta tutto.
+ * Alla fine stampa il throughput e i percentili di latenza per comando.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.example.footballbot.LoadTestRunner \
+ *      --rate 2000 --duration 30 --chats 5000 --latency-ms 20 --jitter-ms 30 --error-rate 0.01 --rate-limit-rate 0.005
+ * </pre>
+ */
+public class LoadTestRunner {
+
+    private static final long TICK_MS = 10;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int rate = Integer.parseInt(options.getOrDefault("rate", "2000"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int chats = Integer.parseInt(options.getOrDefault("chats", "5000"));
+        MockFootballDataServer.Settings settings = new MockFootballDataServer.Settings(
+                Integer.parseInt(options.getOrDefault("latency-ms", "20")),
+                Integer.parseInt(options.getOrDefault("jitter-ms", "30")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Double.parseDouble(options.getOrDefault("rate-limit-rate", "0")));
+
+        try (MockFootballDataServer api = new MockFootballDataServer(settings)) {
+            // Prima di qualsiasi accesso a Config: API finta e nessun limite lato bot
+            configure(api.baseUrl());
+
+            LongAdder sent = new LongAdder();
+            DatabaseHelper.initDatabase();
+            FootballBot bot = new FootballBot(countingClient(sent));
+            FakeUpdateGenerator generator = new FakeUpdateGenerator(chats);
+
+            System.out.printf("🚀 Test di carico: %d update/s per %ds su %d chat, API %s (%s)%n",
+                    rate, durationSeconds, chats, api.baseUrl(), settings);
+
+            AtomicLong generated = new AtomicLong();
+            AtomicInteger maxQueued = new AtomicInteger();
+            ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+            double perTick = rate * TICK_MS / 1000.0;
+            double[] carry = {0};
+
+            long start = System.nanoTime();
+            ticker.scheduleAtFixedRate(() -> {
+                carry[0] += perTick;
+                int n = (int) carry[0];
+                carry[0] -= n;
+                if (n > 0) {
+                    bot.consume(generator.batch(n));
+                    generated.addAndGet(n);
+                }
+                maxQueued.accumulateAndGet(bot.getQueuedUpdates(), Math::max);
+            }, 0, TICK_MS, TimeUnit.MILLISECONDS);
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+            ticker.shutdown();
+            ticker.awaitTermination(1, TimeUnit.SECONDS);
+            long generatedAt = System.nanoTime();
+
+            // Smaltisce gli update rimasti in coda
+            long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (bot.getQueuedUpdates() > 0 && System.nanoTime() < drainDeadline) {
+                Thread.sleep(10);
+            }
+            long end = System.nanoTime();
+
+            report(generated.get(), bot.getQueuedUpdates(), maxQueued.get(),
+                    (generatedAt - start) / 1e9, (end - start) / 1e9, sent.sum());
+            System.out.println("API finta: " + api.describeStats());
+            System.out.println("Richieste: " + FootballApi.describeRequestStats());
+            System.out.println("Cache: " + ResponseCache.describeStats());
+            System.out.println("Risposte pronte: " + ReplyCache.describeStats());
+            System.out.println("Invio: " + bot.describeOutboundStats());
+
+            bot.shutdown();
+            HttpClientPool.shutdown();
+            DatabaseHelper.shutdown();
+        }
+        System.exit(0);
+    }
+
+    private static void configure(String baseUrl) {
+        setDefault("API_BASE_URL", baseUrl);
+        setDefault("API_KEY", "load-test");
+        setDefault("API_REQUESTS_PER_MINUTE", "1000000");
+        setDefault("TELEGRAM_MESSAGES_PER_SECOND", "1000000");
+        setDefault("TELEGRAM_CHAT_INTERVAL_MS", "0");
+        setDefault("TELEGRAM_MAX_PENDING_PER_CHAT", "1000");
+        setDefault("CACHE_PERSISTENT", "false");
+        setDefault("METRICS_PORT", "0");
+        setDefault("PREFETCH_ENABLED", "false");
+    }
+
+    // I valori passati con -Dfootballbot.CHIAVE hanno la precedenza
+    private static void setDefault(String key, String value) {
+        String name = "footballbot." + key;
+        if (System.getProperty(name) == null) System.setProperty(name, value);
+    }
+
+    private static void report(long generated, int stillQueued, int maxQueued,
+                               double generatingSeconds, double totalSeconds, long sent) {
+        long processed = generated - stillQueued;
+        System.out.println();
+        System.out.printf("Update generati: %d in %.1fs (%.0f/s)%n", generated, generatingSeconds, generated / generatingSeconds);
+        System.out.printf("Update elaborati: %d in %.1fs (%.0f/s), coda massima %d, rimasti %d%n",
+                processed, totalSeconds, processed / totalSeconds, maxQueued, stillQueued);
+        System.out.printf("Messaggi inviati al Telegram finto: %d%n%n", sent);
+
+        System.out.printf("%-12s %9s %9s %9s %9s %9s %9s%n", "comando", "n", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (String command : FakeUpdateGenerator.commands()) {
+            LatencyHistogram h = Metrics.histogram("bot_command_seconds", "command", command);
+            long[] p = h.percentilesMicros(0.5, 0.9, 0.99, 0.999);
+            System.out.printf("%-12s %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n", command, h.getCount(),
+                    p[0] / 1000.0, p[1] / 1000.0, p[2] / 1000.0, p[3] / 1000.0, h.getMaxMicros() / 1000.0);
+        }
+        System.out.println();
+    }
+
+    // Telegram finto: ogni invio riesce subito
+    private static TelegramClient countingClient(LongAdder sent) {
+        return (TelegramClient) Proxy.newProxyInstance(TelegramClient.class.getClassLoader(),
+                new Class<?>[]{TelegramClient.class},
+                (proxy, method, args) -> {
+                    if (method.getReturnType() != CompletableFuture.class) return null;
+                    sent.increment();
+                    return CompletableFuture.completedFuture(null);
+                });
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Opzione non valida: " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.footballbot;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Server locale che imita gli endpoint di football-data.org usati da FootballApi,
+ * rispondendo con le fixture registrate. Latenza, errori 500 e 429 sono configurabili
+ * per vedere come si comporta il bot quando l'API rallenta o ci limita.
+ */
+public class MockFootballDataServer implements AutoCloseable {
+
+    /**
+     * Comportamento del server finto
+     *
+     * @param latencyMs      latenza minima di ogni risposta
+     * @param jitterMs       latenza aggiuntiva casuale (0..jitterMs)
+     * @param errorRate      frazione di risposte 500 (0..1)
+     * @param rateLimitRate  frazione di risposte 429 (0..1)
+     */
+    public record Settings(int latencyMs, int jitterMs, double errorRate, double rateLimitRate) {
+        public static final Settings FAST = new Settings(0, 0, 0, 0);
+    }
+
+    private record Route(Pattern path, String fixture, String etag) {}
+
+    private final HttpServer server;
+    private final Settings settings;
+    private final Map<String, byte[]> bodies = new LinkedHashMap<>();
+    private final Route[] routes;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    public MockFootballDataServer(Settings settings) throws IOException {
+        this.settings = settings;
+        // Dal più specifico al più generico
+        this.routes = new Route[]{
+                route("/v4/competitions/\\d+/standings", "pl_standings.json"),
+                route("/v4/competitions/\\d+/teams", "pl_teams.json"),
+                route("/v4/competitions/\\d+/matches", "arsenal_finished_matches.json"),
+                route("/v4/competitions/\\d+", "pl_competition.json"),
+                route("/v4/competitions", "competitions.json"),
+                route("/v4/teams/\\d+/matches", "arsenal_finished_matches.json"),
+                route("/v4/teams/\\d+", "arsenal_team.json"),
+                route("/v4/matches", "arsenal_finished_matches.json"),
+        };
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/v4", this::handle);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.start();
+    }
+
+    private Route route(String path, String fixture) {
+        byte[] body = bodies.computeIfAbsent(fixture, f -> Fixtures.load(f).getBytes(StandardCharsets.UTF_8));
+        return new Route(Pattern.compile(path), fixture, "\"" + Integer.toHexString(java.util.Arrays.hashCode(body)) + "\"");
+    }
+
+    /** Indirizzo da usare come API_BASE_URL */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v4";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            sleep();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < settings.rateLimitRate()) {
+                rateLimited.increment();
+                exchange.getResponseHeaders().set("X-Requests-Available-Minute", "0");
+                exchange.getResponseHeaders().set("X-RequestCounter-Reset", "1");
+                send(exchange, 429, "{\"message\":\"You reached your request limit.\",\"errorCode\":429}");
+                return;
+            }
+            if (random.nextDouble() < settings.errorRate()) {
+                errors.increment();
+                send(exchange, 500, "{\"message\":\"Internal error\",\"errorCode\":500}");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            for (Route route : routes) {
+                if (!route.path().matcher(path).matches()) continue;
+
+                exchange.getResponseHeaders().set("X-Requests-Available-Minute", "1000");
+                exchange.getResponseHeaders().set("X-RequestCounter-Reset", "60");
+                exchange.getResponseHeaders().set("ETag", route.etag());
+                if (route.etag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.increment();
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+
+                byte[] body = bodies.get(route.fixture());
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+                return;
+            }
+            send(exchange, 404, "{\"message\":\"The resource you are looking for does not exist.\",\"errorCode\":404}");
+        }
+    }
+
+    private void sleep() {
+        long delay = settings.latencyMs()
+                + (settings.jitterMs() > 0 ? ThreadLocalRandom.current().nextInt(settings.jitterMs() + 1) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public String describeStats() {
+        return String.format("requests=%d notModified=%d errors=%d rateLimited=%d",
+                requests.sum(), notModified.sum(), errors.sum(), rateLimited.sum());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.footballbot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analisi del JSON e formattazione della risposta per /form e /topteams,
+ * sia dal body grezzo sia dai dati già in cache. La memoria allocata per
+ * risposta si legge con il profiler GC: -prof gc (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    private String matchesJson;
+    private String standingsJson;
+    private JsonStreams.MatchList matches;
+    private StandingsStore.Standings standings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        matchesJson = Fixtures.load("arsenal_finished_matches.json");
+        standingsJson = Fixtures.load("pl_standings.json");
+        matches = Fixtures.parse(JsonStreams.MATCHES, matchesJson);
+        standings = StandingsStore.build(Fixtures.PREMIER_LEAGUE, Fixtures.parse(JsonStreams.STANDINGS, standingsJson));
+    }
+
+    @Benchmark
+    public String formParseAndFormat() {
+        return FootballApi.formatForm(Fixtures.ARSENAL, Fixtures.parse(JsonStreams.MATCHES, matchesJson));
+    }
+
+    @Benchmark
+    public String formFormatOnly() {
+        return FootballApi.formatForm(Fixtures.ARSENAL, matches);
+    }
+
+    @Benchmark
+    public String topTeamsParseAndFormat() {
+        JsonStreams.StandingsTable table = Fixtures.parse(JsonStreams.STANDINGS, standingsJson);
+        return FootballApi.formatTopTeams(StandingsStore.build(Fixtures.PREMIER_LEAGUE, table));
+    }
+
+    @Benchmark
+    public String topTeamsFormatOnly() {
+        return FootballApi.formatTopTeams(standings);
+    }
+}
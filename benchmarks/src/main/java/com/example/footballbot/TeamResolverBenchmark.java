@@ -0,0 +1,63 @@
+package com.example.footballbot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TeamResolver.resolveTeamId su indici di 100 / 1.000 / 10.000 squadre,
+ * per corrispondenza esatta, per prefisso e per sottostringa
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeamResolverBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int teams;
+
+    @Param({"exact", "prefix", "contains"})
+    public String match;
+
+    private String query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TeamResolver.clearCache();
+        TeamResolver.installTeams(Fixtures.PREMIER_LEAGUE, Fixtures.teams(teams));
+
+        query = switch (match) {
+            case "exact" -> "Tottenham Hotspur FC";
+            case "prefix" -> "Totten";
+            case "contains" -> "Hotspur";
+            default -> throw new IllegalArgumentException(match);
+        };
+        if (TeamResolver.resolveTeamId(query, Fixtures.PREMIER_LEAGUE) == null) {
+            throw new IllegalStateException("Nessuna squadra trovata per " + query);
+        }
+    }
+
+    @Benchmark
+    public Integer resolveTeamId() {
+        return TeamResolver.resolveTeamId(query, Fixtures.PREMIER_LEAGUE);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return TeamResolver.normalize("Borussia Mönchengladbach");
+    }
+}
@@ -0,0 +1,399 @@
+package com.example.footballbot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro dichiarativo dei comandi. Ogni comando dichiara alias, argomenti
+ * (lega, squadra, testo libero) e middleware; al momento della costruzione
+ * ogni comando viene "compilato" in un'unica catena di handler, e a runtime
+ * restano un tokenizer a passata singola e una lookup in una HashMap.
+ */
+public class CommandRouter {
+
+    public static final String UNKNOWN = "other";
+
+    // Errori che ripetono il testo dell'utente: il testo viene protetto per il Markdown
+    private static final MessageTemplate LEAGUE_NOT_FOUND = MessageTemplate.compile("❌ Lega non trovata: {0}");
+    private static final MessageTemplate TEAM_NOT_FOUND = MessageTemplate.compile("❌ Squadra non trovata: {0}");
+    private static final MessageTemplate TEAM_NOT_FOUND_IN_LEAGUE =
+            MessageTemplate.compile("❌ Squadra non trovata: {0} nella lega {1}");
+
+    /** Tipo di un argomento tra virgolette */
+    public enum ArgType {
+        /** Nome di lega, risolto con LeagueResolver */
+        LEAGUE,
+        /** Nome di squadra, risolto con TeamResolver (nella lega, se presente); può ripetersi */
+        TEAM,
+        /** Testo passato così com'è all'handler */
+        TEXT
+    }
+
+    record Arg(ArgType type, boolean required) {}
+
+    @FunctionalInterface
+    public interface Handler {
+        /** Testo della risposta, o null per non rispondere */
+        String handle(Context ctx);
+    }
+
+    @FunctionalInterface
+    public interface Middleware {
+        String apply(Context ctx, Handler next);
+    }
+
+    /**
+     * Comando già scomposto dal tokenizer
+     *
+     * @param command nome in minuscolo, senza @bot
+     * @param args    testi tra virgolette, nell'ordine in cui compaiono
+     */
+    public record Parsed(String command, List<String> args) {}
+
+    /**
+     * Richiesta in corso: chat, comando canonico, argomenti e valori già risolti
+     */
+    public static final class Context {
+        private final long chatId;
+        private final String command;
+        private final List<String> args;
+        private Integer leagueId;
+        private String leagueName;
+        private List<Integer> teamIds = List.of();
+        private List<String> teamNames = List.of();
+        private String text;
+
+        Context(long chatId, String command, List<String> args) {
+            this.chatId = chatId;
+            this.command = command;
+            this.args = args;
+        }
+
+        public long chatId() { return chatId; }
+        public String command() { return command; }
+        public List<String> args() { return args; }
+        public Integer leagueId() { return leagueId; }
+        public String leagueName() { return leagueName; }
+        public Integer teamId() { return teamIds.isEmpty() ? null : teamIds.get(0); }
+        public String teamName() { return teamNames.isEmpty() ? null : teamNames.get(0); }
+        /** Tutte le squadre, nell'ordine degli argomenti (es. /h2h "A" "B") */
+        public List<Integer> teamIds() { return teamIds; }
+        public List<String> teamNames() { return teamNames; }
+        public String text() { return text; }
+    }
+
+    private record Route(String name, Handler chain) {}
+
+    private final Map<String, Route> routes;
+    private final Handler unknown;
+    private final String botUsername;
+
+    private CommandRouter(Map<String, Route> routes, Handler unknown, String botUsername) {
+        this.routes = routes;
+        this.unknown = unknown;
+        this.botUsername = botUsername;
+    }
+
+    // --- Tokenizer ---
+
+    /**
+     * Scompone il messaggio in una sola passata: "/cmd@bot "a" "b"" -> (/cmd, [a, b]).
+     * Restituisce null se il comando è indirizzato a un altro bot.
+     */
+    public Parsed parse(String text) {
+        int length = text.length();
+        int i = 0;
+        while (i < length && Character.isWhitespace(text.charAt(i))) i++;
+
+        // Nome del comando, fino al primo spazio; "@bot" finale separato
+        int commandStart = i;
+        int at = -1;
+        boolean needsLowerCase = false;
+        while (i < length && !Character.isWhitespace(text.charAt(i))) {
+            char c = text.charAt(i);
+            if (c == '@' && at < 0) {
+                at = i;
+            } else if (at < 0 && ((c >= 'A' && c <= 'Z') || c > 127)) {
+                needsLowerCase = true;
+            }
+            i++;
+        }
+        int commandEnd = at >= 0 ? at : i;
+        if (at >= 0 && botUsername != null) {
+            int suffixLength = i - at - 1;
+            if (suffixLength != botUsername.length()
+                    || !text.regionMatches(true, at + 1, botUsername, 0, suffixLength)) {
+                return null;
+            }
+        }
+        String command = text.substring(commandStart, commandEnd);
+        if (needsLowerCase) command = command.toLowerCase(Locale.ROOT);
+
+        // Argomenti tra virgolette (il testo fuori dalle virgolette viene ignorato)
+        List<String> args = List.of();
+        while (i < length) {
+            int open = text.indexOf('"', i);
+            if (open < 0) break;
+            int close = text.indexOf('"', open + 1);
+            if (close < 0) break;
+            if (args.isEmpty()) args = new ArrayList<>(2);
+            args.add(text.substring(open + 1, close));
+            i = close + 1;
+        }
+        return new Parsed(command, args);
+    }
+
+    // --- Dispatch ---
+
+    /** Nome canonico del comando (risolvendo gli alias), o UNKNOWN */
+    public String canonicalName(String command) {
+        Route route = routes.get(command);
+        return route != null ? route.name() : UNKNOWN;
+    }
+
+    public String dispatch(long chatId, Parsed parsed) {
+        Route route = routes.get(parsed.command());
+        if (route == null) {
+            return unknown.handle(new Context(chatId, UNKNOWN, parsed.args()));
+        }
+        return route.chain().handle(new Context(chatId, route.name(), parsed.args()));
+    }
+
+    // --- Middleware comuni ---
+
+    /** Tempo di ogni comando nell'istogramma bot_command_seconds */
+    public static Middleware metrics() {
+        return (ctx, next) -> {
+            long start = System.nanoTime();
+            try {
+                return next.handle(ctx);
+            } finally {
+                Metrics.recordNanos("bot_command_seconds", System.nanoTime() - start, "command", ctx.command());
+            }
+        };
+    }
+
+    /**
+     * Limite di comandi per chat (GCRA: un solo long per chat, senza lock).
+     * Con perMinute <= 0 il limite è disattivato.
+     */
+    public static Middleware chatRateLimit(int perMinute, int burst) {
+        if (perMinute <= 0) return (ctx, next) -> next.handle(ctx);
+
+        long interval = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        long tolerance = interval * Math.max(0, burst - 1);
+        Map<Long, AtomicLong> theoreticalArrival = new ConcurrentHashMap<>();
+
+        return (ctx, next) -> {
+            long now = System.nanoTime();
+            AtomicLong tat = theoreticalArrival.computeIfAbsent(ctx.chatId(), id -> new AtomicLong(now));
+            while (true) {
+                long current = tat.get();
+                long base = Math.max(current, now);
+                if (base - now > tolerance) {
+                    Metrics.increment("bot_commands_rate_limited_total", "command", ctx.command());
+                    return "⏳ Troppe richieste, riprova tra qualche secondo.";
+                }
+                if (tat.compareAndSet(current, base + interval)) break;
+            }
+            if (theoreticalArrival.size() > 10_000) {
+                // Le chat ferme da più di un intervallo non servono più
+                theoreticalArrival.values().removeIf(t -> t.get() < now);
+            }
+            return next.handle(ctx);
+        };
+    }
+
+    // --- Costruzione ---
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final List<Middleware> global = new ArrayList<>();
+        private final List<CommandBuilder> commands = new ArrayList<>();
+        private Handler unknown = ctx -> null;
+        private String botUsername;
+
+        /** Middleware applicato a tutti i comandi (il primo registrato è il più esterno) */
+        public Builder use(Middleware middleware) {
+            global.add(middleware);
+            return this;
+        }
+
+        /** Se impostato, i comandi "/cmd@altrobot" vengono ignorati */
+        public Builder botUsername(String username) {
+            this.botUsername = username == null || username.isBlank() ? null : username.trim();
+            return this;
+        }
+
+        public Builder unknown(Handler handler) {
+            this.unknown = handler;
+            return this;
+        }
+
+        public CommandBuilder command(String name) {
+            CommandBuilder command = new CommandBuilder(this, name);
+            commands.add(command);
+            return command;
+        }
+
+        public CommandRouter build() {
+            Map<String, Route> routes = new HashMap<>();
+            for (CommandBuilder c : commands) {
+                Route route = new Route(c.name, c.compile(global));
+                for (String key : c.names()) {
+                    if (routes.putIfAbsent(key, route) != null) {
+                        throw new IllegalStateException("Comando registrato due volte: " + key);
+                    }
+                }
+            }
+
+            // Anche i comandi sconosciuti passano dai middleware (metriche, limiti)
+            Handler unknownChain = unknown;
+            for (int i = global.size() - 1; i >= 0; i--) {
+                Middleware m = global.get(i);
+                Handler next = unknownChain;
+                unknownChain = ctx -> m.apply(ctx, next);
+            }
+            return new CommandRouter(Map.copyOf(routes), unknownChain, botUsername);
+        }
+    }
+
+    public static final class CommandBuilder {
+        private final Builder parent;
+        private final String name;
+        private final List<String> aliases = new ArrayList<>();
+        private final List<Arg> args = new ArrayList<>();
+        private final List<Middleware> middlewares = new ArrayList<>();
+        private final List<Middleware> resolvedMiddlewares = new ArrayList<>();
+        private String usage;
+        private Handler handler;
+
+        private CommandBuilder(Builder parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        public CommandBuilder alias(String... names) {
+            aliases.addAll(List.of(names));
+            return this;
+        }
+
+        /** Argomento tra virgolette, nell'ordine in cui l'utente lo scrive */
+        public CommandBuilder arg(ArgType type, boolean required) {
+            args.add(new Arg(type, required));
+            return this;
+        }
+
+        /** Messaggio mostrato quando manca un argomento obbligatorio */
+        public CommandBuilder usage(String usage) {
+            this.usage = usage;
+            return this;
+        }
+
+        /** Middleware solo per questo comando (dopo quelli globali) */
+        public CommandBuilder use(Middleware middleware) {
+            middlewares.add(middleware);
+            return this;
+        }
+
+        /**
+         * Middleware eseguito dopo la risoluzione degli argomenti, subito prima dell'handler:
+         * vede leagueId e teamIds (es. la cache delle risposte)
+         */
+        public CommandBuilder useResolved(Middleware middleware) {
+            resolvedMiddlewares.add(middleware);
+            return this;
+        }
+
+        public Builder handle(Handler handler) {
+            this.handler = handler;
+            return parent;
+        }
+
+        private List<String> names() {
+            List<String> names = new ArrayList<>(aliases.size() + 1);
+            names.add(name);
+            names.addAll(aliases);
+            return names;
+        }
+
+        private Handler compile(List<Middleware> global) {
+            if (handler == null) throw new IllegalStateException("Handler mancante per " + name);
+
+            List<Arg> schema = List.copyOf(args);
+            String usageText = usage;
+            Handler target = handler;
+            for (int i = resolvedMiddlewares.size() - 1; i >= 0; i--) {
+                Middleware m = resolvedMiddlewares.get(i);
+                Handler next = target;
+                target = ctx -> m.apply(ctx, next);
+            }
+            Handler resolved = target;
+            Handler chain = ctx -> {
+                String error = resolve(schema, usageText, ctx);
+                return error != null ? error : resolved.handle(ctx);
+            };
+
+            List<Middleware> all = new ArrayList<>(global);
+            all.addAll(middlewares);
+            for (int i = all.size() - 1; i >= 0; i--) {
+                Middleware m = all.get(i);
+                Handler next = chain;
+                chain = ctx -> m.apply(ctx, next);
+            }
+            return chain;
+        }
+    }
+
+    /**
+     * Associa gli argomenti allo schema e risolve lega e squadra (prima la lega,
+     * così la squadra viene cercata solo lì). Restituisce il messaggio d'errore, o null.
+     */
+    private static String resolve(List<Arg> schema, String usage, Context ctx) {
+        List<String> values = ctx.args;
+        List<String> teamInputs = new ArrayList<>(1);
+        for (int i = 0; i < schema.size(); i++) {
+            Arg arg = schema.get(i);
+            String value = i < values.size() ? values.get(i).trim() : null;
+            if (value == null || value.isEmpty()) {
+                if (arg.required()) return usage;
+                continue;
+            }
+            switch (arg.type()) {
+                case LEAGUE -> {
+                    Integer leagueId = LeagueResolver.resolveLeagueId(value);
+                    if (leagueId == null) return LEAGUE_NOT_FOUND.render(value);
+                    ctx.leagueId = leagueId;
+                    ctx.leagueName = value;
+                }
+                case TEAM -> teamInputs.add(value);
+                case TEXT -> ctx.text = value;
+            }
+        }
+
+        if (!teamInputs.isEmpty()) {
+            List<Integer> teamIds = new ArrayList<>(teamInputs.size());
+            for (String teamInput : teamInputs) {
+                Integer teamId = TeamResolver.resolveTeamId(teamInput, ctx.leagueId);
+                if (teamId == null) {
+                    return ctx.leagueName != null
+                            ? TEAM_NOT_FOUND_IN_LEAGUE.render(teamInput, ctx.leagueName)
+                            : TEAM_NOT_FOUND.render(teamInput);
+                }
+                teamIds.add(teamId);
+            }
+            ctx.teamIds = teamIds;
+            ctx.teamNames = teamInputs;
+        }
+        return null;
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.footballbot;
 
 import java.io.FileInputStream;
+import java.time.ZoneId;
 import java.util.Properties;
 
 public class Config {
     private static final Properties props = new Properties();
 
+    // -Dfootballbot.CHIAVE=valore sovrascrive config.properties (test di carico, server finti)
+    private static final String SYSTEM_PROPERTY_PREFIX = "footballbot.";
+
     static {
         try (FileInputStream in = new FileInputStream("config.properties")) {
             if (in != null) {
@@ -16,6 +20,12 @@ public class Config {
         } catch (Exception e) {
             e.printStackTrace();
         }
+
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(SYSTEM_PROPERTY_PREFIX)) {
+                props.setProperty(name.substring(SYSTEM_PROPERTY_PREFIX.length()), System.getProperty(name));
+            }
+        }
     }
 
     public static String getApiKey() {
@@ -25,4 +35,273 @@ public class Config {
     public static String getBotToken() {
         return props.getProperty("BOT_TOKEN", "").trim();
     }
+
+    /**
+     * Indirizzo base dell'API football-data.org (sostituibile con un server locale)
+     */
+    public static String getApiBaseUrl() {
+        return props.getProperty("API_BASE_URL", "https://api.football-data.org/v4").trim();
+    }
+
+    /**
+     * Indirizzo alternativo del Bot API di Telegram (es. http://localhost:8081), null per quello ufficiale
+     */
+    public static String getTelegramApiUrl() {
+        String url = props.getProperty("TELEGRAM_API_URL", "").trim();
+        return url.isEmpty() ? null : url;
+    }
+
+    /**
+     * Username del bot (senza @): se impostato, i comandi "/cmd@AltroBot" nei gruppi vengono ignorati
+     */
+    public static String getBotUsername() {
+        return props.getProperty("BOT_USERNAME", "").trim().replaceFirst("^@", "");
+    }
+
+    /**
+     * Fuso orario per "oggi" e per gli orari mostrati (default: quello del server)
+     */
+    public static ZoneId getZoneId() {
+        String zone = props.getProperty("TIME_ZONE", "").trim();
+        if (zone.isEmpty()) return ZoneId.systemDefault();
+        try {
+            return ZoneId.of(zone);
+        } catch (Exception e) {
+            System.err.println("❌ Fuso orario non valido: " + zone);
+            return ZoneId.systemDefault();
+        }
+    }
+
+    // --- Client HTTP verso football-data.org ---
+
+    public static int getHttpMaxConnections() {
+        return getInt("HTTP_MAX_CONNECTIONS", 20);
+    }
+
+    public static int getHttpMaxConnectionsPerRoute() {
+        return getInt("HTTP_MAX_CONNECTIONS_PER_ROUTE", 10);
+    }
+
+    public static int getHttpConnectTimeoutMs() {
+        return getInt("HTTP_CONNECT_TIMEOUT_MS", 3000);
+    }
+
+    public static int getHttpSocketTimeoutMs() {
+        return getInt("HTTP_SOCKET_TIMEOUT_MS", 10000);
+    }
+
+    public static int getHttpResponseTimeoutMs() {
+        return getInt("HTTP_RESPONSE_TIMEOUT_MS", 10000);
+    }
+
+    public static int getHttpKeepAliveSeconds() {
+        return getInt("HTTP_KEEP_ALIVE_SECONDS", 60);
+    }
+
+    // --- Cache delle risposte API ---
+
+    public static int getCacheMaxEntries() {
+        return getInt("CACHE_MAX_ENTRIES", 500);
+    }
+
+    public static int getCacheTtlStaticSeconds() {
+        return getInt("CACHE_TTL_STATIC_SECONDS", 6 * 60 * 60);
+    }
+
+    public static int getCacheTtlStandingsSeconds() {
+        return getInt("CACHE_TTL_STANDINGS_SECONDS", 5 * 60);
+    }
+
+    public static int getCacheTtlMatchesSeconds() {
+        return getInt("CACHE_TTL_MATCHES_SECONDS", 30);
+    }
+
+    /**
+     * Salva le risposte anche nel database, per ritrovarle dopo un riavvio
+     */
+    public static boolean isApiCachePersistent() {
+        return Boolean.parseBoolean(props.getProperty("CACHE_PERSISTENT", "true").trim());
+    }
+
+    public static int getCachePersistentRetentionDays() {
+        return getInt("CACHE_PERSISTENT_RETENTION_DAYS", 7);
+    }
+
+    // --- Limite richieste football-data.org ---
+
+    public static int getApiRequestsPerMinute() {
+        return getInt("API_REQUESTS_PER_MINUTE", 10);
+    }
+
+    public static int getApiMaxWaitInteractiveMs() {
+        return getInt("API_MAX_WAIT_INTERACTIVE_MS", 8000);
+    }
+
+    public static int getApiMaxWaitBackgroundMs() {
+        return getInt("API_MAX_WAIT_BACKGROUND_MS", 120000);
+    }
+
+    // --- Elaborazione degli update Telegram ---
+
+    /**
+     * "virtual" (default) per un virtual thread per update, "fixed" per un pool di thread classico
+     */
+    public static String getUpdateExecutor() {
+        return props.getProperty("UPDATE_EXECUTOR", "virtual").trim().toLowerCase();
+    }
+
+    public static int getUpdateThreads() {
+        return getInt("UPDATE_THREADS", 16);
+    }
+
+    // --- Database SQLite ---
+
+    public static int getDbReadPoolSize() {
+        return getInt("DB_READ_POOL_SIZE", 4);
+    }
+
+    public static int getDbBusyTimeoutMs() {
+        return getInt("DB_BUSY_TIMEOUT_MS", 5000);
+    }
+
+    public static int getDbFlushIntervalMs() {
+        return getInt("DB_FLUSH_INTERVAL_MS", 2000);
+    }
+
+    public static int getDbFlushBatchSize() {
+        return getInt("DB_FLUSH_BATCH_SIZE", 200);
+    }
+
+    // --- Pre-caricamento in background ---
+
+    public static boolean isPrefetchEnabled() {
+        return Boolean.parseBoolean(props.getProperty("PREFETCH_ENABLED", "true").trim());
+    }
+
+    public static int getPrefetchLiveSeconds() {
+        return getInt("PREFETCH_LIVE_SECONDS", 60);
+    }
+
+    public static int getPrefetchMatchdaySeconds() {
+        return getInt("PREFETCH_MATCHDAY_SECONDS", 5 * 60);
+    }
+
+    public static int getPrefetchIdleSeconds() {
+        return getInt("PREFETCH_IDLE_SECONDS", 30 * 60);
+    }
+
+    public static int getPrefetchNightSeconds() {
+        return getInt("PREFETCH_NIGHT_SECONDS", 2 * 60 * 60);
+    }
+
+    /**
+     * Richieste al minuto lasciate sempre libere per i comandi degli utenti
+     */
+    public static int getPrefetchReservedRequests() {
+        return getInt("PREFETCH_RESERVED_REQUESTS", 3);
+    }
+
+    // --- Archivio partite ---
+
+    /** Secondi dopo i quali un comando avvia una sincronizzazione incrementale della competizione */
+    public static int getMatchSyncStaleSeconds() {
+        return getInt("MATCH_SYNC_STALE_SECONDS", 5 * 60);
+    }
+
+    /** Giorni successivi a oggi riletti ad ogni sincronizzazione incrementale (rinvii, orari) */
+    public static int getMatchSyncAheadDays() {
+        return getInt("MATCH_SYNC_AHEAD_DAYS", 14);
+    }
+
+    /** Ore dopo le quali la stagione intera viene riscaricata */
+    public static int getMatchFullSyncHours() {
+        return getInt("MATCH_FULL_SYNC_HOURS", 7 * 24);
+    }
+
+    // --- Calendario partite (/today, /week) ---
+
+    /** Giorni dopo oggi tenuti nel calendario in memoria */
+    public static int getCalendarDaysAhead() {
+        return getInt("CALENDAR_DAYS_AHEAD", 7);
+    }
+
+    public static int getCalendarRefreshSeconds() {
+        return getInt("CALENDAR_REFRESH_SECONDS", 10 * 60);
+    }
+
+    // --- Risposte già pronte ---
+
+    /** Risposte dei comandi tenute in memoria per (comando, argomenti, versione dei dati); 0 = disattivato */
+    public static int getReplyCacheMaxEntries() {
+        return getInt("REPLY_CACHE_MAX_ENTRIES", 1000);
+    }
+
+    // --- Squadre in memoria ---
+
+    /** Competizioni non principali tenute in memoria insieme (le meno usate vengono scaricate) */
+    public static int getTeamMaxCompetitions() {
+        return getInt("TEAM_MAX_COMPETITIONS", 20);
+    }
+
+    /** Minuti senza ricerche dopo i quali una competizione non principale viene scaricata */
+    public static int getTeamIdleMinutes() {
+        return getInt("TEAM_IDLE_MINUTES", 120);
+    }
+
+    // --- Aggiornamenti live (/follow) ---
+
+    public static int getLivePollSeconds() {
+        return getInt("LIVE_POLL_SECONDS", 60);
+    }
+
+    // --- Invio messaggi Telegram ---
+
+    public static int getTelegramMessagesPerSecond() {
+        return getInt("TELEGRAM_MESSAGES_PER_SECOND", 30);
+    }
+
+    public static int getTelegramChatIntervalMs() {
+        return getInt("TELEGRAM_CHAT_INTERVAL_MS", 1000);
+    }
+
+    public static int getTelegramMaxPendingPerChat() {
+        return getInt("TELEGRAM_MAX_PENDING_PER_CHAT", 50);
+    }
+
+    // --- Metriche ---
+
+    /** Porta dell'endpoint /metrics (0 = disabilitato) */
+    public static int getMetricsPort() {
+        return getInt("METRICS_PORT", 9464);
+    }
+
+    public static String getMetricsHost() {
+        return props.getProperty("METRICS_HOST", "127.0.0.1").trim();
+    }
+
+    // --- Limite comandi per chat ---
+
+    /** Comandi che usano l'API consentiti per chat al minuto (0 = nessun limite) */
+    public static int getCommandRatePerMinute() {
+        return getInt("COMMAND_RATE_PER_MINUTE", 20);
+    }
+
+    public static int getCommandBurst() {
+        return getInt("COMMAND_BURST", 5);
+    }
+
+    /**
+     * Legge un intero dal file di configurazione, con valore di default
+     * se la chiave manca o non è valida
+     */
+    static int getInt(String key, int defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.isBlank()) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("❌ Valore non valido per " + key + ": " + value);
+            return defaultValue;
+        }
+    }
 }
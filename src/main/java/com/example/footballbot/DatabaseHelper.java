@@ -1,23 +1,198 @@
 package com.example.footballbot;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DatabaseHelper {
     private static final String DB_URL = "jdbc:sqlite:footballbot.db";
 
+    /**
+     * Connessione aperta una volta sola, con i prepared statement già compilati
+     */
+    static final class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        Connection connection() {
+            return connection;
+        }
+
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement stmt = statements.get(sql);
+            if (stmt == null) {
+                stmt = connection.prepareStatement(sql);
+                statements.put(sql, stmt);
+            }
+            return stmt;
+        }
+
+        void close() {
+            try {
+                for (PreparedStatement stmt : statements.values()) stmt.close();
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Risposta API salvata nella tabella api_cache
+     */
+    public record ApiCacheRow(String endpoint, String parser, String payload, String etag,
+                              String lastModified, long fetchedAt, long expiresAt) {}
+
+    /**
+     * Iscrizione di una chat agli aggiornamenti live di una squadra o di una lega
+     */
+    public record SubscriptionRow(long chatId, String kind, int targetId, String targetName) {}
+
+    @FunctionalInterface
+    interface SqlTask<T> {
+        T run(PooledConnection db) throws SQLException;
+    }
+
+    // Un solo thread scrive sul database: niente SQLITE_BUSY tra handler concorrenti
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "db-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Usata solo dal thread db-writer
+    private static PooledConnection writeConnection;
+
+    // Letture in parallelo: con WAL non vengono bloccate dalla scrittura in corso
+    private static final BlockingQueue<PooledConnection> READ_POOL =
+            new ArrayBlockingQueue<>(Math.max(1, Config.getDbReadPoolSize()));
+
+    private static volatile boolean readPoolReady;
+
+    /**
+     * Attività di un utente in attesa di essere scritta (null = nessuna modifica)
+     */
+    private record PendingActivity(String username, String lastCommand) {
+        PendingActivity mergeWith(PendingActivity newer) {
+            return new PendingActivity(
+                    newer.username != null ? newer.username : username,
+                    newer.lastCommand != null ? newer.lastCommand : lastCommand);
+        }
+    }
+
+    // Write-behind: le attività vengono raccolte per chat_id (l'ultima vince)
+    // e scritte a blocchi in un'unica transazione, fuori dal percorso di risposta
+    private static final ConcurrentHashMap<Long, PendingActivity> PENDING = new ConcurrentHashMap<>();
+    private static final AtomicBoolean FLUSH_QUEUED = new AtomicBoolean();
+    private static final ScheduledExecutorService FLUSH_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-flush-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final AtomicLong FLUSHES = new AtomicLong();
+    private static final AtomicLong FLUSHED_ROWS = new AtomicLong();
+    private static final AtomicLong FLUSH_NANOS_TOTAL = new AtomicLong();
+    private static volatile long lastFlushNanos;
+
+    static {
+        long interval = Config.getDbFlushIntervalMs();
+        FLUSH_TIMER.scheduleWithFixedDelay(DatabaseHelper::flushAsync, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
     // Inizializza il database creando la tabella users
     public static void initDatabase() {
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
-
-            stmt.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS users (
-                    chat_id INTEGER PRIMARY KEY,
-                    username TEXT,
-                    last_command TEXT,
-                    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
-                )
-            """);
+        try {
+            write(db -> {
+                try (Statement stmt = db.connection().createStatement()) {
+                    stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS users (
+                            chat_id INTEGER PRIMARY KEY,
+                            username TEXT,
+                            last_command TEXT,
+                            created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+                        )
+                    """);
+
+                    // Cache persistente delle risposte API (payload = record serializzato in JSON compatto).
+                    // Le versioni precedenti avevano solo endpoint come chiave: è una cache, si ricrea
+                    if (!isApiCacheKeyedByParser(stmt)) {
+                        stmt.executeUpdate("DROP TABLE IF EXISTS api_cache");
+                    }
+                    stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS api_cache (
+                            endpoint TEXT NOT NULL,
+                            parser TEXT NOT NULL,
+                            payload TEXT NOT NULL,
+                            etag TEXT,
+                            last_modified TEXT,
+                            fetched_at INTEGER NOT NULL,
+                            expires_at INTEGER NOT NULL,
+                            PRIMARY KEY (endpoint, parser)
+                        )
+                    """);
+
+                    // Archivio locale delle partite, aggiornato con sincronizzazioni incrementali
+                    stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS matches (
+                            id INTEGER PRIMARY KEY,
+                            competition_id INTEGER NOT NULL,
+                            season_start TEXT,
+                            utc_date TEXT NOT NULL,
+                            status TEXT NOT NULL,
+                            home_id INTEGER NOT NULL,
+                            home_name TEXT,
+                            away_id INTEGER NOT NULL,
+                            away_name TEXT,
+                            home_goals INTEGER,
+                            away_goals INTEGER,
+                            synced_at INTEGER NOT NULL
+                        )
+                    """);
+                    stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_matches_competition_date ON matches(competition_id, utc_date)");
+                    stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_matches_home_date ON matches(home_id, utc_date)");
+                    stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_matches_away_date ON matches(away_id, utc_date)");
+
+                    // Stato della sincronizzazione di ogni competizione (watermark = data da cui ripartire)
+                    stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS match_sync (
+                            competition_id INTEGER PRIMARY KEY,
+                            watermark TEXT NOT NULL,
+                            full_synced_at INTEGER NOT NULL,
+                            synced_at INTEGER NOT NULL
+                        )
+                    """);
+
+                    // Iscrizioni agli aggiornamenti live (/follow)
+                    stmt.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS subscriptions (
+                            chat_id INTEGER NOT NULL,
+                            kind TEXT NOT NULL,
+                            target_id INTEGER NOT NULL,
+                            target_name TEXT,
+                            created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+                            PRIMARY KEY (chat_id, kind, target_id)
+                        )
+                    """);
+                }
+                return null;
+            });
 
             System.out.println("✅ Database inizializzato con successo!");
 
@@ -27,52 +202,286 @@ public class DatabaseHelper {
         }
     }
 
-    // Aggiunge un utente se non esiste
+    // Aggiunge un utente se non esiste (scrittura asincrona)
     public static void addUser(long chatId, String username) {
-        String sql = "INSERT OR IGNORE INTO users(chat_id, username) VALUES (?, ?)";
+        enqueue(chatId, new PendingActivity(username, null));
+    }
 
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    // Aggiorna l'ultimo comando eseguito dall'utente (scrittura asincrona)
+    public static void updateLastCommand(long chatId, String command) {
+        enqueue(chatId, new PendingActivity(null, command));
+    }
 
-            stmt.setLong(1, chatId);
-            stmt.setString(2, username);
-            stmt.executeUpdate();
+    // Registra utente e comando in un colpo solo: usato ad ogni messaggio ricevuto
+    public static void recordActivity(long chatId, String username, String command) {
+        enqueue(chatId, new PendingActivity(username, command));
+    }
 
+    private static void enqueue(long chatId, PendingActivity activity) {
+        PENDING.merge(chatId, activity, PendingActivity::mergeWith);
+        if (PENDING.size() >= Config.getDbFlushBatchSize()) {
+            flushAsync();
+        }
+    }
+
+    /**
+     * Chiede una scrittura delle attività in attesa senza aspettarla
+     * (al massimo una richiesta in coda alla volta)
+     */
+    private static void flushAsync() {
+        if (PENDING.isEmpty() || !FLUSH_QUEUED.compareAndSet(false, true)) return;
+        try {
+            WRITER.execute(() -> {
+                FLUSH_QUEUED.set(false);
+                try {
+                    flushPending(writeConnection());
+                } catch (SQLException e) {
+                    System.err.println("❌ Errore durante la scrittura delle attività utenti:");
+                    e.printStackTrace();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Writer già fermato (spegnimento in corso)
+            FLUSH_QUEUED.set(false);
+        }
+    }
+
+    /**
+     * Scrive subito tutte le attività in attesa e attende la fine della transazione
+     */
+    public static void flush() {
+        try {
+            write(db -> {
+                flushPending(db);
+                return null;
+            });
         } catch (SQLException e) {
-            System.err.println("❌ Errore durante l'aggiunta dell'utente " + chatId);
+            System.err.println("❌ Errore durante la scrittura delle attività utenti:");
             e.printStackTrace();
         }
     }
 
-    // Aggiorna l'ultimo comando eseguito dall'utente
-    public static void updateLastCommand(long chatId, String command) {
-        String sql = "UPDATE users SET last_command = ? WHERE chat_id = ?";
+    // Solo sul thread db-writer
+    private static void flushPending(PooledConnection db) throws SQLException {
+        if (PENDING.isEmpty()) return;
+        long start = System.nanoTime();
+
+        PreparedStatement insert = db.prepare("INSERT OR IGNORE INTO users(chat_id, username) VALUES (?, ?)");
+        PreparedStatement updateUsername = db.prepare("UPDATE users SET username = ? WHERE chat_id = ?");
+        PreparedStatement updateCommand = db.prepare("UPDATE users SET last_command = ? WHERE chat_id = ?");
+
+        Map<Long, PendingActivity> batch = new HashMap<>();
+        for (Long chatId : PENDING.keySet()) {
+            PendingActivity activity = PENDING.remove(chatId);
+            if (activity != null) batch.put(chatId, activity);
+        }
+
+        Connection conn = db.connection();
+        conn.setAutoCommit(false);
+        try {
+            for (Map.Entry<Long, PendingActivity> e : batch.entrySet()) {
+                long chatId = e.getKey();
+                PendingActivity activity = e.getValue();
+
+                insert.setLong(1, chatId);
+                insert.setString(2, activity.username());
+                insert.addBatch();
+
+                if (activity.username() != null) {
+                    updateUsername.setString(1, activity.username());
+                    updateUsername.setLong(2, chatId);
+                    updateUsername.addBatch();
+                }
+                if (activity.lastCommand() != null) {
+                    updateCommand.setString(1, activity.lastCommand());
+                    updateCommand.setLong(2, chatId);
+                    updateCommand.addBatch();
+                }
+            }
+            insert.executeBatch();
+            updateUsername.executeBatch();
+            updateCommand.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            // Le attività non scritte tornano in coda (senza sovrascrivere quelle più recenti)
+            batch.forEach((chatId, activity) -> PENDING.merge(chatId, activity, (newer, older) -> older.mergeWith(newer)));
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        FLUSH_NANOS_TOTAL.addAndGet(elapsed);
+        FLUSHES.incrementAndGet();
+        FLUSHED_ROWS.addAndGet(batch.size());
+        Metrics.recordNanos("db_write_seconds", elapsed, "op", "flush");
+    }
+
+    // True se api_cache manca o ha già la chiave (endpoint, parser)
+    private static boolean isApiCacheKeyedByParser(Statement stmt) throws SQLException {
+        boolean exists = false;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(api_cache)")) {
+            while (rs.next()) {
+                exists = true;
+                if ("parser".equals(rs.getString("name")) && rs.getInt("pk") > 0) return true;
+            }
+        }
+        return !exists;
+    }
+
+    /**
+     * Salva (in background) una risposta API nella cache persistente
+     */
+    public static void saveApiCacheEntry(String endpoint, String parser, Object value, String etag,
+                                         String lastModified, long fetchedAt, long expiresAt) {
+        String sql = """
+            INSERT OR REPLACE INTO api_cache(endpoint, parser, payload, etag, last_modified, fetched_at, expires_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
 
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        writeAsync("❌ Errore durante il salvataggio della cache per " + endpoint, db -> {
+            PreparedStatement stmt = db.prepare(sql);
+            stmt.setString(1, endpoint);
+            stmt.setString(2, parser);
+            // Serializzazione sul thread db-writer, fuori dal percorso della richiesta
+            stmt.setString(3, ResponseCache.toPayload(value));
+            stmt.setString(4, etag);
+            stmt.setString(5, lastModified);
+            stmt.setLong(6, fetchedAt);
+            stmt.setLong(7, expiresAt);
+            return stmt.executeUpdate();
+        });
+    }
+
+    /**
+     * Aggiorna la scadenza di una risposta confermata dall'API (304 Not Modified)
+     */
+    public static void touchApiCacheEntry(String endpoint, String parser, long fetchedAt, long expiresAt) {
+        String sql = "UPDATE api_cache SET fetched_at = ?, expires_at = ? WHERE endpoint = ? AND parser = ?";
+
+        writeAsync("❌ Errore durante l'aggiornamento della cache per " + endpoint, db -> {
+            PreparedStatement stmt = db.prepare(sql);
+            stmt.setLong(1, fetchedAt);
+            stmt.setLong(2, expiresAt);
+            stmt.setString(3, endpoint);
+            stmt.setString(4, parser);
+            return stmt.executeUpdate();
+        });
+    }
+
+    /**
+     * Risposte salvate, dalla più recente, dopo aver eliminato quelle troppo vecchie
+     */
+    public static List<ApiCacheRow> loadApiCache(int limit) {
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(Config.getCachePersistentRetentionDays());
+        List<ApiCacheRow> rows = new ArrayList<>();
+
+        try {
+            write(db -> {
+                PreparedStatement stmt = db.prepare("DELETE FROM api_cache WHERE expires_at < ?");
+                stmt.setLong(1, cutoff);
+                return stmt.executeUpdate();
+            });
+
+            read(db -> {
+                PreparedStatement stmt = db.prepare("""
+                    SELECT endpoint, parser, payload, etag, last_modified, fetched_at, expires_at
+                    FROM api_cache ORDER BY fetched_at DESC LIMIT ?
+                """);
+                stmt.setInt(1, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new ApiCacheRow(rs.getString(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getLong(6), rs.getLong(7)));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ Errore durante la lettura della cache persistente:");
+            e.printStackTrace();
+        }
+
+        return rows;
+    }
+
+    // Aggiunge un'iscrizione (scrittura asincrona)
+    public static void addSubscription(long chatId, String kind, int targetId, String targetName) {
+        String sql = "INSERT OR REPLACE INTO subscriptions(chat_id, kind, target_id, target_name) VALUES (?, ?, ?, ?)";
+
+        writeAsync("❌ Errore durante il salvataggio dell'iscrizione per " + chatId, db -> {
+            PreparedStatement stmt = db.prepare(sql);
+            stmt.setLong(1, chatId);
+            stmt.setString(2, kind);
+            stmt.setInt(3, targetId);
+            stmt.setString(4, targetName);
+            return stmt.executeUpdate();
+        });
+    }
+
+    // Rimuove un'iscrizione (scrittura asincrona)
+    public static void removeSubscription(long chatId, String kind, int targetId) {
+        String sql = "DELETE FROM subscriptions WHERE chat_id = ? AND kind = ? AND target_id = ?";
+
+        writeAsync("❌ Errore durante la rimozione dell'iscrizione per " + chatId, db -> {
+            PreparedStatement stmt = db.prepare(sql);
+            stmt.setLong(1, chatId);
+            stmt.setString(2, kind);
+            stmt.setInt(3, targetId);
+            return stmt.executeUpdate();
+        });
+    }
 
-            stmt.setString(1, command);
-            stmt.setLong(2, chatId);
-            stmt.executeUpdate();
+    // Tutte le iscrizioni salvate
+    public static List<SubscriptionRow> loadSubscriptions() {
+        String sql = "SELECT chat_id, kind, target_id, target_name FROM subscriptions";
+        List<SubscriptionRow> rows = new ArrayList<>();
 
+        try {
+            read(db -> {
+                try (ResultSet rs = db.prepare(sql).executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new SubscriptionRow(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getString(4)));
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
-            System.err.println("❌ Errore durante l'aggiornamento del comando per " + chatId);
+            System.err.println("❌ Errore durante la lettura delle iscrizioni:");
             e.printStackTrace();
         }
+
+        return rows;
+    }
+
+    /** Attività in attesa di scrittura */
+    public static int getQueueDepth() {
+        return PENDING.size();
+    }
+
+    public static String describeWriteBehindStats() {
+        long flushes = FLUSHES.get();
+        return String.format("queued=%d flushes=%d rows=%d lastFlushMs=%.2f avgFlushMs=%.2f",
+                PENDING.size(), flushes, FLUSHED_ROWS.get(),
+                lastFlushNanos / 1e6,
+                flushes == 0 ? 0 : FLUSH_NANOS_TOTAL.get() / 1e6 / flushes);
     }
 
     // Conteggio totale utenti
     public static int getTotalUsers() {
         String sql = "SELECT COUNT(*) FROM users";
 
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+        // Gli utenti nuovi ancora in coda devono essere contati
+        flush();
 
+        try {
+            return read(db -> {
+                try (ResultSet rs = db.prepare(sql).executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            });
         } catch (SQLException e) {
             System.err.println("❌ Errore durante il conteggio degli utenti:");
             e.printStackTrace();
@@ -85,14 +494,17 @@ public class DatabaseHelper {
     public static boolean userExists(long chatId) {
         String sql = "SELECT 1 FROM users WHERE chat_id = ? LIMIT 1";
 
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setLong(1, chatId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
-            }
+        // Utente appena arrivato e non ancora scritto
+        if (PENDING.containsKey(chatId)) return true;
 
+        try {
+            return read(db -> {
+                PreparedStatement stmt = db.prepare(sql);
+                stmt.setLong(1, chatId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
+                }
+            });
         } catch (SQLException e) {
             System.err.println("❌ Errore durante la verifica dell'utente " + chatId);
             e.printStackTrace();
@@ -100,4 +512,126 @@ public class DatabaseHelper {
 
         return false;
     }
+
+    /**
+     * Esegue una scrittura sul thread db-writer e ne attende il risultato
+     */
+    static <T> T write(SqlTask<T> task) throws SQLException {
+        try {
+            return WRITER.submit(() -> timed("sync", task)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Scrittura interrotta", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException se) throw se;
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    /**
+     * Accoda una scrittura sul thread db-writer senza attenderla
+     */
+    static void writeAsync(String errorMessage, SqlTask<?> task) {
+        try {
+            WRITER.execute(() -> {
+                try {
+                    timed("async", task);
+                } catch (SQLException e) {
+                    System.err.println(errorMessage);
+                    e.printStackTrace();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Writer già fermato (spegnimento in corso)
+            System.err.println(errorMessage);
+        }
+    }
+
+    // Solo sul thread db-writer: esegue la scrittura e ne registra la durata
+    private static <T> T timed(String op, SqlTask<T> task) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return task.run(writeConnection());
+        } finally {
+            Metrics.recordNanos("db_write_seconds", System.nanoTime() - start, "op", op);
+        }
+    }
+
+    private static PooledConnection writeConnection() throws SQLException {
+        if (writeConnection == null) writeConnection = open();
+        return writeConnection;
+    }
+
+    /**
+     * Esegue una lettura con una connessione del pool
+     */
+    static <T> T read(SqlTask<T> task) throws SQLException {
+        ensureReadPool();
+        PooledConnection db;
+        try {
+            db = READ_POOL.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Lettura interrotta", e);
+        }
+        try {
+            return task.run(db);
+        } finally {
+            READ_POOL.offer(db);
+        }
+    }
+
+    private static void ensureReadPool() throws SQLException {
+        if (readPoolReady) return;
+        synchronized (READ_POOL) {
+            if (readPoolReady) return;
+            while (READ_POOL.remainingCapacity() > 0) {
+                READ_POOL.offer(open());
+            }
+            readPoolReady = true;
+        }
+    }
+
+    /**
+     * Apre una connessione con WAL e pragma adatti a molte piccole scritture
+     */
+    private static PooledConnection open() throws SQLException {
+        Connection conn = DriverManager.getConnection(DB_URL);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+            // Con WAL, NORMAL è sicuro contro la corruzione e risparmia un fsync per commit
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            stmt.execute("PRAGMA busy_timeout=" + Config.getDbBusyTimeoutMs());
+        }
+        return new PooledConnection(conn);
+    }
+
+    /**
+     * Scrive le attività in coda e chiude tutte le connessioni (da chiamare allo spegnimento)
+     */
+    public static void shutdown() {
+        // Prima di chiudere scrive tutto quello che è ancora in coda
+        FLUSH_TIMER.shutdown();
+        flush();
+        System.out.println("💾 Attività utenti salvate (" + describeWriteBehindStats() + ")");
+
+        WRITER.submit(() -> {
+            if (writeConnection != null) {
+                writeConnection.close();
+                writeConnection = null;
+            }
+        });
+        WRITER.shutdown();
+        try {
+            WRITER.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        PooledConnection db;
+        while ((db = READ_POOL.poll()) != null) {
+            db.close();
+        }
+        readPoolReady = false;
+    }
 }
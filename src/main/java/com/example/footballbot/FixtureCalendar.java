@@ -0,0 +1,279 @@
+package com.example.footballbot;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Calendario in memoria delle partite di tutte le competizioni seguite, da ieri a
+ * CALENDAR_DAYS_AHEAD giorni, riempito con poche chiamate /matches?dateFrom&dateTo.
+ * Le partite sono ordinate per orario d'inizio: "oggi", "questa settimana" e "oggi
+ * in Serie A" sono ricerche binarie sui confini dei giorni nel fuso configurato.
+ */
+public class FixtureCalendar {
+
+    // L'API accetta intervalli di al massimo 10 giorni per /matches
+    private static final int MAX_DAYS_PER_REQUEST = 10;
+
+    /**
+     * Calendario immutabile: kickoffs[i] è l'inizio (epoch secondi) di matches[i], in ordine crescente
+     *
+     * @param competitions competizioni coperte
+     * @param from         primo giorno (UTC) scaricato
+     * @param to           ultimo giorno (UTC) scaricato
+     * @param version      cambia solo quando cambiano le partite
+     */
+    record Snapshot(Set<Integer> competitions, LocalDate from, LocalDate to,
+                    long[] kickoffs, JsonStreams.Match[] matches, long loadedAt, long version) {
+        static final Snapshot EMPTY = new Snapshot(Set.of(), LocalDate.MIN, LocalDate.MIN,
+                new long[0], new JsonStreams.Match[0], 0, 0);
+
+        boolean covers(int competitionId, LocalDate fromDay, LocalDate toDay, ZoneId zone) {
+            return competitions.contains(competitionId) && covers(fromDay, toDay, zone);
+        }
+
+        boolean covers(LocalDate fromDay, LocalDate toDay, ZoneId zone) {
+            if (competitions.isEmpty()) return false;
+            // I giorni nel fuso dell'utente devono stare dentro l'intervallo UTC scaricato
+            LocalDate first = fromDay.atStartOfDay(zone).withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+            LocalDate last = toDay.plusDays(1).atStartOfDay(zone).minusSeconds(1)
+                    .withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+            return !first.isBefore(from) && !last.isAfter(to);
+        }
+    }
+
+    private static volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    // Serializza solo le pubblicazioni di un nuovo calendario
+    private static final Object PUBLISH_LOCK = new Object();
+
+    private static final SingleFlight<Snapshot> LOADS = new SingleFlight<>();
+    private static final AtomicBoolean REFRESHING = new AtomicBoolean();
+    private static final ExecutorService REFRESHER = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Dopo un caricamento fallito i comandi non ritentano subito (nanoTime)
+    private static volatile long retryAt;
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static final AtomicLong LOADS_DONE = new AtomicLong();
+    private static final AtomicLong MERGES = new AtomicLong();
+
+    // --- Ricerca ---
+
+    /**
+     * Partite dei giorni indicati (estremi inclusi, nel fuso configurato), ordinate per orario;
+     * se competitionId non è null solo quella competizione.
+     *
+     * @return null se il calendario non copre la richiesta (competizione non seguita o API non disponibile)
+     */
+    public static List<JsonStreams.Match> between(LocalDate fromDay, LocalDate toDay, Integer competitionId) {
+        ZoneId zone = Config.getZoneId();
+        Snapshot current = current();
+        boolean covered = competitionId != null
+                ? current.covers(competitionId, fromDay, toDay, zone)
+                : current.covers(fromDay, toDay, zone);
+        if (!covered) return null;
+
+        long start = fromDay.atStartOfDay(zone).toEpochSecond();
+        long end = toDay.plusDays(1).atStartOfDay(zone).toEpochSecond();
+        int lo = lowerBound(current.kickoffs(), start);
+        int hi = lowerBound(current.kickoffs(), end);
+
+        List<JsonStreams.Match> result = new ArrayList<>(hi - lo);
+        for (int i = lo; i < hi; i++) {
+            JsonStreams.Match m = current.matches()[i];
+            if (competitionId == null || m.competitionId() == competitionId) result.add(m);
+        }
+        return result;
+    }
+
+    /**
+     * Versione dei dati: cambia solo quando il calendario cambia davvero.
+     * Non carica nulla: 0 se il calendario in memoria non copre ancora i giorni richiesti.
+     */
+    public static long version() {
+        Snapshot current = snapshot;
+        return isMissingDays(current, LocalDate.now(ZoneOffset.UTC)) ? 0 : current.version();
+    }
+
+    private static int lowerBound(long[] values, long key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Il calendario non copre da ieri a oggi + CALENDAR_DAYS_AHEAD
+    private static boolean isMissingDays(Snapshot current, LocalDate today) {
+        return current.competitions().isEmpty() || current.from().isAfter(today.minusDays(1))
+                || current.to().isBefore(today.plusDays(Config.getCalendarDaysAhead()));
+    }
+
+    /**
+     * Calendario attuale: caricato subito se manca o non copre più oggi,
+     * aggiornato in background se più vecchio di CALENDAR_REFRESH_SECONDS
+     */
+    private static Snapshot current() {
+        Snapshot current = snapshot;
+        if (isMissingDays(current, LocalDate.now(ZoneOffset.UTC))) {
+            if (System.nanoTime() - retryAt < 0) return current;
+            Snapshot loaded = load(RateLimiter.Priority.INTERACTIVE);
+            return loaded != null ? loaded : snapshot;
+        }
+        if (System.currentTimeMillis() - current.loadedAt() > Config.getCalendarRefreshSeconds() * 1000L) {
+            refreshAsync();
+        }
+        return current;
+    }
+
+    // --- Caricamento ---
+
+    /**
+     * Riscarica il calendario delle competizioni seguite (leghe principali e competizioni
+     * nell'archivio): da ieri a oggi + CALENDAR_DAYS_AHEAD, in blocchi di al massimo 10 giorni
+     *
+     * @return il nuovo calendario, o null se l'API non ha risposto
+     */
+    public static Snapshot load(RateLimiter.Priority priority) {
+        // Una chiave per priorità: un comando non attende dietro il caricamento in background
+        return LOADS.run("calendar " + priority, () -> doLoad(priority));
+    }
+
+    public static void refreshAsync() {
+        if (!REFRESHING.compareAndSet(false, true)) return;
+        REFRESHER.execute(() -> {
+            try {
+                load(RateLimiter.Priority.BACKGROUND);
+            } finally {
+                REFRESHING.set(false);
+            }
+        });
+    }
+
+    private static Snapshot doLoad(RateLimiter.Priority priority) {
+        Set<Integer> competitions = new LinkedHashSet<>(LeagueResolver.getAllLeagueIds());
+        competitions.addAll(MatchArchive.getSyncedCompetitions());
+        String filter = competitions.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = today.minusDays(1);
+        LocalDate to = today.plusDays(Config.getCalendarDaysAhead());
+
+        List<JsonStreams.Match> all = new ArrayList<>();
+        for (LocalDate chunk = from; !chunk.isAfter(to); chunk = chunk.plusDays(MAX_DAYS_PER_REQUEST)) {
+            LocalDate chunkEnd = chunk.plusDays(MAX_DAYS_PER_REQUEST - 1);
+            if (chunkEnd.isAfter(to)) chunkEnd = to;
+            JsonStreams.MatchList part = FootballApi.refresh("/matches?competitions=" + filter
+                    + "&dateFrom=" + chunk.format(DateTimeFormatter.ISO_DATE)
+                    + "&dateTo=" + chunkEnd.format(DateTimeFormatter.ISO_DATE),
+                    JsonStreams.MATCHES, priority);
+            if (part == null) {
+                System.err.println("❌ FixtureCalendar: calendario non disponibile dal " + chunk);
+                retryAt = System.nanoTime() + RETRY_NANOS;
+                return null;
+            }
+            all.addAll(part.matches());
+        }
+
+        Snapshot loaded;
+        synchronized (PUBLISH_LOCK) {
+            loaded = publish(Set.copyOf(competitions), from, to, all);
+        }
+        LOADS_DONE.incrementAndGet();
+        return loaded;
+    }
+
+    /**
+     * Aggiorna le partite già presenti nel calendario con dati più recenti
+     * (es. il polling live): niente richieste, solo un nuovo snapshot
+     */
+    public static void merge(JsonStreams.MatchList updates) {
+        if (updates == null || updates.matches().isEmpty()) return;
+        synchronized (PUBLISH_LOCK) {
+            Snapshot current = snapshot;
+            if (current.competitions().isEmpty()) return;
+
+            IntMap<JsonStreams.Match> byId = new IntMap<>(current.matches().length);
+            for (JsonStreams.Match m : current.matches()) byId.put(m.id(), m);
+            boolean changed = false;
+            for (JsonStreams.Match m : updates.matches()) {
+                JsonStreams.Match old = byId.get(m.id());
+                if (old != null && !old.equals(m)) {
+                    byId.put(m.id(), m);
+                    changed = true;
+                }
+            }
+            if (!changed) return;
+
+            List<JsonStreams.Match> all = new ArrayList<>(byId.size());
+            for (JsonStreams.Match m : current.matches()) all.add(byId.get(m.id()));
+            publish(current.competitions(), current.from(), current.to(), all);
+            MERGES.incrementAndGet();
+        }
+    }
+
+    // Solo con PUBLISH_LOCK
+    private static Snapshot publish(Set<Integer> competitions, LocalDate from, LocalDate to,
+                                    List<JsonStreams.Match> matches) {
+        List<JsonStreams.Match> sorted = new ArrayList<>(matches.size());
+        for (JsonStreams.Match m : matches) {
+            if (parseKickoff(m.utcDate()) != Long.MIN_VALUE) sorted.add(m);
+        }
+        // A parità di orario: competizione, poi id (ordine stabile tra un caricamento e l'altro)
+        sorted.sort(Comparator.comparingLong((JsonStreams.Match m) -> parseKickoff(m.utcDate()))
+                .thenComparingInt(JsonStreams.Match::competitionId)
+                .thenComparingInt(JsonStreams.Match::id));
+
+        long[] kickoffs = new long[sorted.size()];
+        for (int i = 0; i < kickoffs.length; i++) kickoffs[i] = parseKickoff(sorted.get(i).utcDate());
+        JsonStreams.Match[] array = sorted.toArray(new JsonStreams.Match[0]);
+
+        Snapshot current = snapshot;
+        boolean same = current.competitions().equals(competitions) && Arrays.equals(current.matches(), array);
+        long version = same ? current.version() : VERSIONS.incrementAndGet();
+        Snapshot next = new Snapshot(competitions, from, to, kickoffs, array, System.currentTimeMillis(), version);
+        snapshot = next;
+        return next;
+    }
+
+    private static long parseKickoff(String utcDate) {
+        if (utcDate == null) return Long.MIN_VALUE;
+        try {
+            return Instant.parse(utcDate).getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /** Competizioni coperte dal calendario attuale */
+    public static Collection<Integer> getCompetitions() {
+        return snapshot.competitions();
+    }
+
+    public static String describeStats() {
+        Snapshot current = snapshot;
+        return String.format("matches=%d competitions=%d version=%d loads=%d merges=%d",
+                current.matches().length, current.competitions().size(), current.version(),
+                LOADS_DONE.get(), MERGES.get());
+    }
+}
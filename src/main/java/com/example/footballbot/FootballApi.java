@@ -1,226 +1,588 @@
 package com.example.footballbot;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 
 public class FootballApi {
 
-    private static final String BASE_URL = "https://api.football-data.org/v4";
+    private static final String BASE_URL = Config.getApiBaseUrl();
+
+    // Le richieste identiche in corso nello stesso momento condividono una sola chiamata HTTP
+    // e il relativo risultato già analizzato
+    private static final SingleFlight<Object> IN_FLIGHT = new SingleFlight<>();
+
+    // Limite di richieste al minuto del token football-data.org
+    private static final RateLimiter RATE_LIMITER = new RateLimiter(Config.getApiRequestsPerMinute());
+
+    // Risposte lette e analizzate (la memoria allocata per risposta si misura con JMH: -prof gc)
+    private static final LongAdder PARSED_RESPONSES = new LongAdder();
+
+    // Segmenti numerici del percorso (id di lega, squadra, ...), sostituiti nelle label delle metriche
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    // Orari e giorni mostrati nel fuso configurato
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEE dd/MM", Locale.ITALIAN);
+
+    // Modelli delle risposte, compilati una volta (i nomi vengono protetti per il Markdown)
+    private static final MessageTemplate NEXT_MATCH = MessageTemplate.compile("⚽ *{0}* vs *{1}*\n📅 {2}");
+    private static final MessageTemplate FORM_LINE = MessageTemplate.compile("{0} ⚽ *{1}* vs *{2}* - {3}\n   📅 {4}\n\n");
+    private static final MessageTemplate TABLE_ROW = MessageTemplate.compile("{0}. {1}\n");
+    private static final MessageTemplate NAME_LINE = MessageTemplate.compile("{0}\n");
+    private static final MessageTemplate LAST_MATCH = MessageTemplate.compile("⚽ *Ultima partita:* {0} vs {1} → {2}");
+    private static final MessageTemplate H2H_HEADER = MessageTemplate.compile(
+            "⚔️ *{0}* vs *{1}* (ultimi {2})\n✅ {0}: {3} · ➖ Pareggi: {4} · ✅ {1}: {5}\n\n");
+    private static final MessageTemplate H2H_LINE = MessageTemplate.compile("📅 {0}  {1} {2}-{3} {4}\n");
+    private static final MessageTemplate SEASON_HEADER = MessageTemplate.compile("📈 *{0}* - stagione {1}\n");
+    private static final MessageTemplate SEASON_BLOCK = MessageTemplate.compile(
+            "\n🏆 {0}\n{1} partite: {2} V, {3} N, {4} P\nGol: {5}-{6} · Punti: {7}\n");
+    private static final MessageTemplate COMPETITION_HEADER = MessageTemplate.compile("\n🏆 {0}\n");
+    private static final MessageTemplate LEAGUE_INFO = MessageTemplate.compile(
+            "🏟️ {0} ({1})\nAnno inizio: {2}\nNumero squadre: {3}");
+    private static final MessageTemplate TEAM_INFO = MessageTemplate.compile(
+            "⚽ *{0}*\n🏟️ Stadio: {1}\n📅 Fondazione: {2}");
+    private static final MessageTemplate TEAM_LEAGUE = MessageTemplate.compile("\n🏆 Lega: {0}");
+    private static final MessageTemplate STADIUM_LINE = MessageTemplate.compile("🏟️ {0} → Squadra: {1}\n");
+
+    /**
+     * Chiamata all'API con lettura in streaming della risposta
+     *
+     * @param endpoint path relativo a BASE_URL
+     * @param parser   come leggere la risposta
+     * @param priority INTERACTIVE per i comandi, BACKGROUND per i pre-caricamenti
+     * @return il risultato (eventualmente dalla cache, anche scaduta se l'API non è disponibile)
+     *         oppure null se non c'è nessun dato
+     */
+    public static <T> T fetch(String endpoint, JsonStreams.Parser<T> parser, RateLimiter.Priority priority) {
+        T cached = ResponseCache.get(endpoint, parser);
+        if (cached != null) return cached;
+
+        Object result = IN_FLIGHT.run(flightKey(endpoint, parser, priority), () -> {
+            // Ricontrolla: una chiamata appena conclusa potrebbe aver già riempito la cache
+            T fresh = ResponseCache.peek(endpoint, parser);
+            return fresh != null ? fresh : fetchFromApi(endpoint, parser, priority);
+        });
+        return parser.type().cast(result);
+    }
+
+    /**
+     * Come fetch, ma interroga comunque l'API anche se la cache è ancora valida
+     * (con richiesta condizionale se possibile). Usato dai pre-caricamenti.
+     */
+    public static <T> T refresh(String endpoint, JsonStreams.Parser<T> parser, RateLimiter.Priority priority) {
+        Object result = IN_FLIGHT.run(flightKey(endpoint, parser, priority),
+                () -> fetchFromApi(endpoint, parser, priority));
+        return parser.type().cast(result);
+    }
+
+    // La priorità fa parte della chiave: un comando non deve attendere in coda dietro
+    // la stessa richiesta avviata in background (pre-caricamenti, live, warm-up)
+    private static String flightKey(String endpoint, JsonStreams.Parser<?> parser, RateLimiter.Priority priority) {
+        return parser.name() + " " + priority + " " + endpoint;
+    }
 
-    // Chiamata generica all'API
-    public static String makeRequest(String endpoint) {
+    public static <T> T fetch(String endpoint, JsonStreams.Parser<T> parser) {
+        return fetch(endpoint, parser, RateLimiter.Priority.INTERACTIVE);
+    }
+
+    private static <T> T fetchFromApi(String endpoint, JsonStreams.Parser<T> parser, RateLimiter.Priority priority) {
         String url = BASE_URL + endpoint;
         String apiKey = Config.getApiKey();
-        if (apiKey == null || apiKey.isEmpty())
-            return "❌ API key mancante!";
+        if (apiKey == null || apiKey.isEmpty()) {
+            System.err.println("❌ API key mancante!");
+            return null;
+        }
 
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpGet request = new HttpGet(url);
-            request.setHeader("X-Auth-Token", apiKey.trim());
+        long maxWait = priority == RateLimiter.Priority.INTERACTIVE
+                ? Config.getApiMaxWaitInteractiveMs()
+                : Config.getApiMaxWaitBackgroundMs();
+        long waitStart = System.nanoTime();
+        boolean acquired = RATE_LIMITER.acquire(priority, maxWait);
+        Metrics.recordNanos("api_rate_limit_wait_seconds", System.nanoTime() - waitStart,
+                "priority", priority.name().toLowerCase());
+        if (!acquired) {
+            // Limite esaurito: meglio un dato un po' vecchio che un errore
+            System.err.println("⏳ Limite richieste API raggiunto per " + endpoint);
+            return ResponseCache.getStale(endpoint, parser);
+        }
 
-            try (CloseableHttpResponse response = client.execute(request)) {
-                String body = EntityUtils.toString(response.getEntity());
-                if (response.getCode() != 200) return "❌ Errore API: " + body;
-                return body;
-            }
+        HttpGet request = new HttpGet(url);
+        request.setHeader("X-Auth-Token", apiKey.trim());
+
+        // Abbiamo già una versione scaduta: chiediamo all'API solo se è cambiata
+        ResponseCache.Validators validators = ResponseCache.validators(endpoint, parser);
+        if (validators != null) {
+            if (validators.etag() != null) request.setHeader("If-None-Match", validators.etag());
+            if (validators.lastModified() != null) request.setHeader("If-Modified-Since", validators.lastModified());
+        }
+
+        // Client condiviso: il response handler consuma sempre il body,
+        // così la connessione torna nel pool e viene riusata
+        String metricsEndpoint = endpointLabel(endpoint);
+        long start = System.nanoTime();
+        try {
+            return HttpClientPool.getClient().execute(request, response -> {
+                HttpEntity entity = response.getEntity();
+                Metrics.increment("api_responses_total", "endpoint", metricsEndpoint,
+                        "status", String.valueOf(response.getCode()));
+                int available = intHeader(response, "X-Requests-Available-Minute", -1);
+                int reset = intHeader(response, "X-RequestCounter-Reset", 60);
+
+                if (response.getCode() == 429) {
+                    RATE_LIMITER.pause(reset);
+                } else if (available >= 0) {
+                    RATE_LIMITER.updateFromServer(available, reset);
+                }
+
+                if (response.getCode() == 304) {
+                    EntityUtils.consume(entity);
+                    T unchanged = ResponseCache.revalidated(endpoint, parser);
+                    if (unchanged != null) return unchanged;
+                }
+
+                if (response.getCode() != 200 || entity == null) {
+                    String body = entity != null ? EntityUtils.toString(entity) : "";
+                    Metrics.add("api_response_bytes_total", body.length(), "endpoint", metricsEndpoint);
+                    System.err.println("❌ Errore API " + response.getCode() + " per " + endpoint + ": " + body);
+                    return ResponseCache.getStale(endpoint, parser);
+                }
+
+                // Lettura diretta dallo stream: niente String intermedia, niente albero JSON
+                T value;
+                CountingInputStream body = new CountingInputStream(entity.getContent());
+                try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+                    value = parser.read(reader);
+                }
+                PARSED_RESPONSES.increment();
+                Metrics.add("api_response_bytes_total", body.count, "endpoint", metricsEndpoint);
+
+                // In cache solo le risposte valide, mai gli errori
+                ResponseCache.put(endpoint, parser, value,
+                        stringHeader(response, "ETag"), stringHeader(response, "Last-Modified"));
+                return value;
+            });
         } catch (Exception e) {
+            Metrics.increment("api_errors_total", "endpoint", metricsEndpoint);
+            System.err.println("❌ Errore nella connessione API per " + endpoint);
             e.printStackTrace();
-            return "❌ Errore nella connessione API.";
+            return ResponseCache.getStale(endpoint, parser);
+        } finally {
+            Metrics.recordNanos("api_request_seconds", System.nanoTime() - start, "endpoint", metricsEndpoint);
         }
     }
 
-    /** Prossima partita di una lega */
-    public static String getNextMatch(int leagueId) {
-        String json = makeRequest("/competitions/" + leagueId + "/matches?status=SCHEDULED&limit=5");
-        if (json == null) return "❌ Nessuna risposta dall'API.";
+    /**
+     * Endpoint senza query string e con gli id numerici sostituiti da {id},
+     * così le metriche hanno un numero limitato di serie
+     */
+    static String endpointLabel(String endpoint) {
+        int query = endpoint.indexOf('?');
+        String path = query >= 0 ? endpoint.substring(0, query) : endpoint;
+        return NUMERIC_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+    /**
+     * Conta i byte letti dal body della risposta
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+
+    private static String stringHeader(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
 
+    private static int intHeader(HttpResponse response, String name, int defaultValue) {
+        Header header = response.getFirstHeader(name);
+        if (header == null) return defaultValue;
         try {
-            JsonArray matches = JsonParser.parseString(json).getAsJsonObject().getAsJsonArray("matches");
-            if (matches.isEmpty()) return "📭 Nessuna partita programmata.";
+            return Integer.parseInt(header.getValue().trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /** Richieste ancora disponibili adesso senza attendere */
+    public static double availableRequestTokens() {
+        return RATE_LIMITER.availableTokens();
+    }
 
-            JsonObject m = matches.get(0).getAsJsonObject();
-            String home = m.getAsJsonObject("homeTeam").get("name").getAsString();
-            String away = m.getAsJsonObject("awayTeam").get("name").getAsString();
-            String date = m.get("utcDate").getAsString();
+    // --- Endpoint condivisi tra comandi e pre-caricamenti (stessa chiave di cache) ---
 
-            return String.format("⚽ *%s* vs *%s*\n📅 %s", home, away, date);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "❌ Errore nel processare le partite.";
+    static String standingsPath(int leagueId) {
+        return "/competitions/" + leagueId + "/standings";
+    }
+
+    static String teamsPath(int leagueId) {
+        return "/competitions/" + leagueId + "/teams";
+    }
+
+    static String scheduledMatchesPath(int leagueId) {
+        return "/competitions/" + leagueId + "/matches?status=SCHEDULED&limit=5";
+    }
+
+    static String finishedMatchesPath(int leagueId) {
+        return "/competitions/" + leagueId + "/matches?status=FINISHED&limit=5";
+    }
+
+    static String matchesOnDatePath(int leagueId, LocalDate date) {
+        String day = date.format(DateTimeFormatter.ISO_DATE);
+        return "/competitions/" + leagueId + "/matches?dateFrom=" + day + "&dateTo=" + day;
+    }
+
+    /** Richieste in attesa di un permesso del rate limiter */
+    public static int getRateLimitQueueLength() {
+        return RATE_LIMITER.queueLength();
+    }
+
+    /** Statistiche sul limite di richieste */
+    public static String describeRateLimitStats() {
+        return String.format("tokens=%.1f queued=%d", RATE_LIMITER.availableTokens(), RATE_LIMITER.queueLength());
+    }
+
+    /** Statistiche sulle richieste deduplicate */
+    public static String describeRequestStats() {
+        return String.format("executed=%d coalesced=%d inFlight=%d parsed=%d",
+                IN_FLIGHT.getExecuted(), IN_FLIGHT.getShared(), IN_FLIGHT.inFlightCount(),
+                PARSED_RESPONSES.sum());
+    }
+
+    /** Prossima partita di una lega (dall'archivio locale, o dall'API se non disponibile) */
+    public static String getNextMatch(int leagueId) {
+        JsonStreams.Match m;
+        if (MatchArchive.ensureSynced(leagueId)) {
+            m = MatchArchive.nextScheduled(leagueId);
+        } else {
+            JsonStreams.MatchList result = fetch(scheduledMatchesPath(leagueId), JsonStreams.MATCHES);
+            if (result == null) return "❌ Nessuna risposta dall'API.";
+            m = result.matches().stream()
+                    .filter(match -> match.utcDate() != null)
+                    .min(Comparator.comparing(JsonStreams.Match::utcDate))
+                    .orElse(null);
         }
+        if (m == null) return "📭 Nessuna partita programmata.";
+
+        return NEXT_MATCH.render(m.homeName(), m.awayName(), m.utcDate());
     }
 
     /** Form ultimi 5 match di una squadra */
     public static String getForm(int teamId) {
+        // Archivio solo se contiene tutte le competizioni in corso della squadra (coppe ed europee
+        // comprese), altrimenti la forma perderebbe le partite delle altre. I dati della squadra
+        // cambiano di rado e restano nella cache delle risposte.
+        JsonStreams.Team team = fetch("/teams/" + teamId, JsonStreams.TEAM);
+        if (team != null && MatchArchive.coversAll(team.runningCompetitions())) {
+            return formatForm(teamId, new JsonStreams.MatchList(MatchArchive.lastFinishedForTeam(teamId, 5)));
+        }
+
         // IMPORTANTE: aggiungi status=FINISHED per prendere solo partite terminate
-        String json = makeRequest("/teams/" + teamId + "/matches?status=FINISHED&limit=5");
-        if (json == null) return "❌ Nessuna risposta dall'API.";
+        JsonStreams.MatchList result = fetch("/teams/" + teamId + "/matches?status=FINISHED&limit=5", JsonStreams.MATCHES);
+        if (result == null) return "❌ Nessuna risposta dall'API.";
+        return formatForm(teamId, result);
+    }
 
-        try {
-            JsonArray matches = JsonParser.parseString(json).getAsJsonObject().getAsJsonArray("matches");
-            if (matches.isEmpty()) return "📭 Nessuna partita recente completata.";
-
-            StringBuilder sb = new StringBuilder("📊 *Ultimi 5 risultati:*\n\n");
-
-            for (int i = 0; i < matches.size(); i++) {
-                JsonObject m = matches.get(i).getAsJsonObject();
-
-                // Informazioni squadre
-                String home = m.getAsJsonObject("homeTeam").get("name").getAsString();
-                String away = m.getAsJsonObject("awayTeam").get("name").getAsString();
-
-                // Score
-                JsonObject scoreObj = m.getAsJsonObject("score");
-                JsonObject fullTime = scoreObj.getAsJsonObject("fullTime");
-
-                Integer homeGoals = fullTime.get("home").isJsonNull() ? null : fullTime.get("home").getAsInt();
-                Integer awayGoals = fullTime.get("away").isJsonNull() ? null : fullTime.get("away").getAsInt();
-
-                String score = (homeGoals != null && awayGoals != null)
-                        ? homeGoals + "-" + awayGoals
-                        : "N/D";
-
-                // Data
-                String date = m.get("utcDate").getAsString();
-                // Formatta la data (prende solo la parte della data, non l'ora)
-                String formattedDate = date.split("T")[0];
-
-                // Risultato (W/D/L) rispetto alla squadra
-                String result = "";
-                if (homeGoals != null && awayGoals != null) {
-                    int teamIdHome = m.getAsJsonObject("homeTeam").get("id").getAsInt();
-                    boolean isHome = (teamIdHome == teamId);
-
-                    if (homeGoals > awayGoals) {
-                        result = isHome ? "✅ V" : "❌ P";
-                    } else if (homeGoals < awayGoals) {
-                        result = isHome ? "❌ P" : "✅ V";
-                    } else {
-                        result = "➖ P";
-                    }
+    /** Testo del comando /form a partire dalle partite già analizzate */
+    static String formatForm(int teamId, JsonStreams.MatchList result) {
+        List<JsonStreams.Match> matches = result.matches();
+        if (matches.isEmpty()) return "📭 Nessuna partita recente completata.";
+
+        StringBuilder sb = new StringBuilder("📊 *Ultimi 5 risultati:*\n\n");
+
+        for (JsonStreams.Match m : matches) {
+            String score = m.hasScore()
+                    ? m.homeGoals() + "-" + m.awayGoals()
+                    : "N/D";
+
+            // Formatta la data (prende solo la parte della data, non l'ora)
+            String date = m.utcDate() != null ? m.utcDate() : "";
+            int t = date.indexOf('T');
+            String formattedDate = t >= 0 ? date.substring(0, t) : date;
+
+            // Risultato (W/D/L) rispetto alla squadra
+            String outcome = "";
+            if (m.hasScore()) {
+                boolean isHome = (m.homeId() == teamId);
+                int homeGoals = m.homeGoals();
+                int awayGoals = m.awayGoals();
+
+                if (homeGoals > awayGoals) {
+                    outcome = isHome ? "✅ V" : "❌ P";
+                } else if (homeGoals < awayGoals) {
+                    outcome = isHome ? "❌ P" : "✅ V";
+                } else {
+                    outcome = "➖ P";
                 }
-
-                sb.append(String.format("%s ⚽ *%s* vs *%s* - %s\n",
-                        result, home, away, score));
-                sb.append(String.format("   📅 %s\n\n", formattedDate));
             }
 
-            return sb.toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "❌ Errore nel processare i risultati.";
+            FORM_LINE.appendTo(sb, outcome, m.homeName(), m.awayName(), score, formattedDate);
         }
+
+        return sb.toString();
     }
 
 
     /** Top teams di una lega */
     public static String getTopTeams(int leagueId) {
-        String json = makeRequest("/competitions/" + leagueId + "/standings");
-        if (json == null) return "❌ Nessuna risposta dall'API.";
+        StandingsStore.Standings table = StandingsStore.get(leagueId);
+        if (table == null) return "❌ Errore nel processare la classifica.";
+        return formatTopTeams(table);
+    }
 
-        try {
-            JsonArray standings = JsonParser.parseString(json)
-                    .getAsJsonObject()
-                    .getAsJsonArray("standings");
-            if (standings.isEmpty()) return "📭 Nessuna classifica disponibile.";
-
-            JsonArray table = standings.get(0).getAsJsonObject().getAsJsonArray("table");
-
-            StringBuilder sb = new StringBuilder("🏆 Classifica Top Squadre:\n");
-            for (int i = 0; i < table.size(); i++) {
-                JsonObject t = table.get(i).getAsJsonObject();
-                int pos = t.get("position").getAsInt();
-                String name = t.getAsJsonObject("team").get("name").getAsString();
-                sb.append(String.format("%d. %s\n", pos, name));
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "❌ Errore nel processare la classifica.";
+    /** Testo del comando /topteams a partire dalla classifica compatta */
+    static String formatTopTeams(StandingsStore.Standings table) {
+        if (table.isEmpty()) return "📭 Nessuna classifica disponibile.";
+
+        StringBuilder sb = new StringBuilder("🏆 Classifica Top Squadre:\n");
+        for (int i = 0; i < table.size(); i++) {
+            TABLE_ROW.appendTo(sb, table.position(i), table.teamName(i));
         }
+        return sb.toString();
     }
 
     /** Squadre retrocesse di una lega */
     public static String getRelegation(int leagueId) {
-        String json = makeRequest("/competitions/" + leagueId + "/standings");
-        if (json == null) return "❌ Nessuna risposta dall'API.";
+        StandingsStore.Standings table = StandingsStore.get(leagueId);
+        if (table == null) return "❌ Errore nel processare la retrocessione.";
+        if (table.isEmpty()) return "📭 Nessuna classifica disponibile.";
 
-        try {
-            JsonArray standings = JsonParser.parseString(json)
-                    .getAsJsonObject()
-                    .getAsJsonArray("standings");
-            if (standings.isEmpty()) return "📭 Nessuna classifica disponibile.";
-
-            JsonArray table = standings.get(0).getAsJsonObject().getAsJsonArray("table");
-            StringBuilder sb = new StringBuilder("📉 Squadre retrocesse:\n");
-            for (int i = table.size() - 3; i < table.size(); i++) {
-                JsonObject t = table.get(i).getAsJsonObject();
-                String name = t.getAsJsonObject("team").get("name").getAsString();
-                sb.append(String.format("%s\n", name));
+        StringBuilder sb = new StringBuilder("📉 Squadre retrocesse:\n");
+        for (int i = Math.max(0, table.size() - 3); i < table.size(); i++) {
+            NAME_LINE.appendTo(sb, table.teamName(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Partite di oggi (nel fuso configurato), di una lega o di tutte le competizioni seguite:
+     * dal calendario in memoria, o dall'API per le leghe che il calendario non copre
+     */
+    public static String getTodayMatches(Integer leagueId) {
+        LocalDate today = LocalDate.now(Config.getZoneId());
+        List<JsonStreams.Match> matches = FixtureCalendar.between(today, today, leagueId);
+        if (matches == null) {
+            if (leagueId == null) return "❌ Nessuna risposta dall'API.";
+            JsonStreams.MatchList result = fetch(matchesOnDatePath(leagueId, today), JsonStreams.MATCHES);
+            if (result == null) return "❌ Nessuna risposta dall'API.";
+            matches = result.matches();
+        }
+        if (matches.isEmpty()) return "📭 Nessuna partita oggi.";
+
+        StringBuilder sb = new StringBuilder("📅 Partite oggi:\n");
+        appendByCompetition(sb, matches, leagueId == null);
+        return sb.toString();
+    }
+
+    /** Partite dei prossimi 7 giorni, oggi compreso, raggruppate per giorno */
+    public static String getWeekMatches(Integer leagueId) {
+        LocalDate today = LocalDate.now(Config.getZoneId());
+        List<JsonStreams.Match> matches = FixtureCalendar.between(today, today.plusDays(6), leagueId);
+        if (matches == null) return "❌ Calendario non disponibile per questa lega.";
+        if (matches.isEmpty()) return "📭 Nessuna partita nei prossimi 7 giorni.";
+
+        StringBuilder sb = new StringBuilder("🗓️ Partite della settimana:\n");
+        LocalDate day = null;
+        for (JsonStreams.Match m : matches) {
+            // Il calendario contiene solo partite con orario valido
+            ZonedDateTime kickoff = kickoffInZone(m);
+            if (!kickoff.toLocalDate().equals(day)) {
+                day = kickoff.toLocalDate();
+                sb.append("\n📆 *").append(DAY_FORMAT.format(day)).append("*\n");
             }
-            return sb.toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "❌ Errore nel processare la retrocessione.";
+            // Resta sotto il limite di 4096 caratteri di un messaggio Telegram
+            if (sb.length() > 3900) {
+                sb.append("…\n");
+                break;
+            }
+            appendMatchLine(sb, m, kickoff, leagueId == null);
+        }
+        return sb.toString();
+    }
+
+    // Con più competizioni: un'intestazione per competizione, nell'ordine della prima partita
+    private static void appendByCompetition(StringBuilder sb, List<JsonStreams.Match> matches, boolean grouped) {
+        if (!grouped) {
+            for (JsonStreams.Match m : matches) appendMatchLine(sb, m, kickoffInZone(m), false);
+            return;
+        }
+        Map<Integer, List<JsonStreams.Match>> byCompetition = new LinkedHashMap<>();
+        for (JsonStreams.Match m : matches) {
+            byCompetition.computeIfAbsent(m.competitionId(), id -> new ArrayList<>()).add(m);
         }
+        byCompetition.forEach((competitionId, list) -> {
+            COMPETITION_HEADER.appendTo(sb, LeagueResolver.getLeagueName(competitionId));
+            for (JsonStreams.Match m : list) appendMatchLine(sb, m, kickoffInZone(m), false);
+        });
     }
 
-    /** Partite di oggi */
-    public static String getTodayMatches(int leagueId) {
-        String today = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
-        String json = makeRequest("/competitions/" + leagueId + "/matches?dateFrom=" + today + "&dateTo=" + today);
-        if (json == null) return "❌ Nessuna risposta dall'API.";
+    // "⚽ 18:45 Inter vs Milan", con il risultato se la partita è iniziata
+    private static void appendMatchLine(StringBuilder sb, JsonStreams.Match m, ZonedDateTime kickoff,
+                                        boolean withCompetition) {
+        sb.append("⚽ ");
+        if (kickoff != null) sb.append(TIME_FORMAT.format(kickoff)).append(' ');
+        MessageTemplate.appendEscaped(sb, m.homeName());
+        if (m.hasScore()) sb.append(' ').append(m.homeGoals()).append('-').append(m.awayGoals()).append(' ');
+        else sb.append(" vs ");
+        MessageTemplate.appendEscaped(sb, m.awayName());
+        if (withCompetition) {
+            sb.append(" (");
+            MessageTemplate.appendEscaped(sb, LeagueResolver.getLeagueName(m.competitionId()));
+            sb.append(')');
+        }
+        sb.append('\n');
+    }
 
+    private static ZonedDateTime kickoffInZone(JsonStreams.Match m) {
         try {
-            JsonArray matches = JsonParser.parseString(json).getAsJsonObject().getAsJsonArray("matches");
-            if (matches.isEmpty()) return "📭 Nessuna partita oggi.";
-
-            StringBuilder sb = new StringBuilder("📅 Partite oggi:\n");
-            for (int i = 0; i < matches.size(); i++) {
-                JsonObject m = matches.get(i).getAsJsonObject();
-                String home = m.getAsJsonObject("homeTeam").get("name").getAsString();
-                String away = m.getAsJsonObject("awayTeam").get("name").getAsString();
-                sb.append(String.format("⚽ %s vs %s\n", home, away));
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "❌ Errore nel processare le partite di oggi.";
+            return m.utcDate() != null ? Instant.parse(m.utcDate()).atZone(Config.getZoneId()) : null;
+        } catch (DateTimeParseException e) {
+            return null;
         }
     }
 
-    /** Ultima partita giocata */
+    /** Ultima partita giocata (dall'archivio locale, o dall'API se non disponibile) */
     public static String getLastMatch(int leagueId) {
-        String json = makeRequest("/competitions/" + leagueId + "/matches?status=FINISHED&limit=5");
-        if (json == null) return "❌ Nessuna risposta dall'API.";
+        JsonStreams.Match m;
+        if (MatchArchive.ensureSynced(leagueId)) {
+            m = MatchArchive.lastFinished(leagueId);
+        } else {
+            JsonStreams.MatchList result = fetch(finishedMatchesPath(leagueId), JsonStreams.MATCHES);
+            if (result == null) return "❌ Nessuna risposta dall'API.";
+            // L'API non garantisce l'ordine: vale la data più recente
+            m = result.matches().stream()
+                    .filter(match -> match.utcDate() != null)
+                    .max(Comparator.comparing(JsonStreams.Match::utcDate))
+                    .orElse(null);
+        }
+        if (m == null) return "📭 Nessuna partita recente.";
 
-        try {
-            JsonArray matches = JsonParser.parseString(json).getAsJsonObject().getAsJsonArray("matches");
-            if (matches.isEmpty()) return "📭 Nessuna partita recente.";
+        String score = m.hasScore() ? m.homeGoals() + "-" + m.awayGoals() : "N/D";
 
-            JsonObject m = matches.get(matches.size() - 1).getAsJsonObject();
-            String home = m.getAsJsonObject("homeTeam").get("name").getAsString();
-            String away = m.getAsJsonObject("awayTeam").get("name").getAsString();
-            String score = m.getAsJsonObject("score").get("fullTime").toString();
+        return LAST_MATCH.render(m.homeName(), m.awayName(), score);
+    }
 
-            return String.format("⚽ *Ultima partita:* %s vs %s → %s", home, away, score);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "❌ Errore nel processare l'ultima partita.";
+    /** Scontri diretti tra due squadre (archivio locale) */
+    public static String getHeadToHead(int teamA, int teamB) {
+        if (teamA == teamB) return "❌ Indica due squadre diverse.";
+        if (!MatchArchive.hasTeam(teamA) || !MatchArchive.hasTeam(teamB)) {
+            return "📭 Nessuna partita in archivio per queste squadre.";
+        }
+
+        List<JsonStreams.Match> matches = MatchArchive.headToHead(teamA, teamB, 10);
+        if (matches.isEmpty()) return "📭 Nessuno scontro diretto in archivio.";
+
+        String nameA = teamName(teamA, matches);
+        String nameB = teamName(teamB, matches);
+        int winsA = 0, winsB = 0, draws = 0, scored = 0;
+        StringBuilder lines = new StringBuilder();
+        for (JsonStreams.Match m : matches) {
+            if (!m.hasScore()) continue;
+            scored++;
+            int diff = m.homeGoals() - m.awayGoals();
+            if (diff == 0) draws++;
+            else if ((diff > 0) == (m.homeId() == teamA)) winsA++;
+            else winsB++;
+            H2H_LINE.appendTo(lines, m.utcDate().substring(0, 10),
+                    m.homeName(), m.homeGoals(), m.awayGoals(), m.awayName());
+        }
+
+        if (scored == 0) return "📭 Nessuno scontro diretto in archivio.";
+
+        // "ultimi N" conta solo le partite con risultato, come vittorie e pareggi
+        StringBuilder sb = new StringBuilder(lines.length() + 128);
+        H2H_HEADER.appendTo(sb, nameA, nameB, scored, winsA, draws, winsB);
+        return sb.append(lines).toString();
+    }
+
+    /** Bilancio della stagione in corso di una squadra (archivio locale) */
+    public static String getSeasonRecord(int teamId, Integer leagueId) {
+        if (!MatchArchive.hasTeam(teamId)) return "📭 Nessuna partita in archivio per questa squadra.";
+
+        List<MatchArchive.SeasonRecord> records = MatchArchive.seasonRecords(teamId, leagueId);
+        if (records.isEmpty()) return "📭 Nessuna partita giocata in questa stagione.";
+
+        String name = teamName(teamId, MatchArchive.lastFinishedForTeam(teamId, 1));
+        StringBuilder sb = new StringBuilder();
+        SEASON_HEADER.appendTo(sb, name, seasonLabel(records.get(0).seasonStart()));
+        for (MatchArchive.SeasonRecord r : records) {
+            SEASON_BLOCK.appendTo(sb, LeagueResolver.getLeagueName(r.competitionId()), r.played(), r.won(),
+                    r.drawn(), r.lost(), r.goalsFor(), r.goalsAgainst(), r.points());
         }
+        return sb.toString();
+    }
+
+    private static String teamName(int teamId, List<JsonStreams.Match> matches) {
+        String name = TeamResolver.getTeamName(teamId);
+        if (name != null) return name;
+        if (matches.isEmpty()) return String.valueOf(teamId);
+        JsonStreams.Match m = matches.get(0);
+        return m.homeId() == teamId ? m.homeName() : m.awayName();
+    }
+
+    // "2024-08-16" -> "2024/25"
+    private static String seasonLabel(String seasonStart) {
+        if (seasonStart == null || seasonStart.length() < 4) return "in corso";
+        int year = Integer.parseInt(seasonStart.substring(0, 4));
+        int next = (year + 1) % 100;
+        return year + (next < 10 ? "/0" : "/") + next;
     }
 
-    /** Lista leghe disponibili */
+    /** Lista leghe disponibili: il catalogo dell'abbonamento, o le leghe principali se non risponde */
     public static String getLeagues() {
+        Map<Integer, String> catalog = LeagueResolver.getCatalog();
+        if (!catalog.isEmpty()) {
+            StringBuilder sb = new StringBuilder("🏟️ Competizioni disponibili:\n");
+            for (String name : catalog.values()) {
+                // Resta sotto il limite di 4096 caratteri di un messaggio Telegram
+                if (sb.length() + name.length() > 4000) {
+                    sb.append("…\n");
+                    break;
+                }
+                NAME_LINE.appendTo(sb, name);
+            }
+            return sb.toString();
+        }
         return """
                 🏟️ Leghe disponibili:
                 Premier League
@@ -235,23 +597,13 @@ public class FootballApi {
     public static String getLeagueInfo(String leagueName) {
         Integer id = LeagueResolver.resolveLeagueId(leagueName);
         if (id == null) return "❌ Lega non trovata!";
-        String json = makeRequest("/competitions/" + id);
-        if (json == null) return "❌ Nessuna risposta dall'API.";
+        JsonStreams.Competition c = fetch("/competitions/" + id, JsonStreams.COMPETITION);
+        if (c == null) return "❌ Nessuna risposta dall'API.";
 
-        try {
-            JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
-            return String.format("🏟️ %s (%s)\nAnno inizio: %d\nNumero squadre: %d",
-                    obj.get("name").getAsString(),
-                    obj.get("area").getAsJsonObject().get("name").getAsString(),
-                    obj.get("firstSeason").getAsInt(),
-                    obj.get("numberOfTeams").getAsInt());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "❌ Errore nel processare le informazioni della lega.";
-        }
+        // I valori mancanti diventano "N/D"
+        return LEAGUE_INFO.render(c.name(), c.areaName(), c.firstSeason(), c.numberOfTeams());
     }
 
-    /** Info su una squadra */
     /** Info su una squadra */
     public static String getTeamInfo(String teamIdStr, String leagueName) {
         // Ora riceve direttamente l'ID della squadra come stringa
@@ -263,48 +615,27 @@ public class FootballApi {
         }
 
         // Richiesta API diretta con l'ID
-        String json = makeRequest("/teams/" + teamId);
-        if (json == null) return "❌ Nessuna risposta dall'API.";
+        JsonStreams.Team team = fetch("/teams/" + teamId, JsonStreams.TEAM);
+        if (team == null) return "❌ Nessuna risposta dall'API.";
 
-        try {
-            JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
-            String teamName = obj.get("name").getAsString();
-            String venue = obj.get("venue").getAsString();
-            String founded = obj.get("founded").getAsString();
-
-            // Costruisci la risposta
-            StringBuilder response = new StringBuilder();
-            response.append(String.format("⚽ *%s*\n", teamName));
-            response.append(String.format("🏟️ Stadio: %s\n", venue));
-            response.append(String.format("📅 Fondazione: %s", founded));
-
-            if (leagueName != null) {
-                response.append(String.format("\n🏆 Lega: %s", leagueName));
-            }
+        // Costruisci la risposta
+        StringBuilder response = new StringBuilder();
+        TEAM_INFO.appendTo(response, team.name(), team.venue(), team.founded());
 
-            return response.toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "❌ Errore nel processare le informazioni della squadra.";
+        if (leagueName != null) {
+            TEAM_LEAGUE.appendTo(response, leagueName);
         }
+
+        return response.toString();
     }
 
 
     /** Info su uno stadio */
     public static String getStadiumInfo(String stadiumName) {
-        // Nota: l'API non fornisce endpoint diretto per stadi, quindi proviamo a cercare tra tutte le squadre
+        // L'API non ha un endpoint per gli stadi: usiamo l'indice costruito con le squadre delle leghe
         StringBuilder sb = new StringBuilder();
-        for (String name : TeamResolver.getAllTeamNames()) {
-            try {
-                Integer teamId = TeamResolver.resolveTeamId(name, 2021);
-                if (teamId == null) continue;
-                String json = makeRequest("/teams/" + teamId);
-                JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
-                String venue = obj.get("venue").getAsString();
-                if (venue.equalsIgnoreCase(stadiumName)) {
-                    sb.append(String.format("🏟️ %s → Squadra: %s\n", venue, obj.get("name").getAsString()));
-                }
-            } catch (Exception ignored) {}
+        for (TeamResolver.StadiumMatch match : TeamResolver.findStadium(stadiumName)) {
+            STADIUM_LINE.appendTo(sb, match.venue(), match.teamName());
         }
         return sb.length() > 0 ? sb.toString() : "❌ Stadio non trovato!";
     }
@@ -1,31 +1,30 @@
 package com.example.footballbot;
 
 import org.telegram.telegrambots.client.okhttp.OkHttpTelegramClient;
-import org.telegram.telegrambots.longpolling.util.LongPollingSingleThreadUpdateConsumer;
-import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
+import org.telegram.telegrambots.meta.TelegramUrl;
 import org.telegram.telegrambots.meta.api.objects.Update;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
 
-public class FootballBot implements LongPollingSingleThreadUpdateConsumer {
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-    private final OkHttpTelegramClient telegramClient;
+import static com.example.footballbot.CommandRouter.ArgType.LEAGUE;
+import static com.example.footballbot.CommandRouter.ArgType.TEAM;
+import static com.example.footballbot.CommandRouter.ArgType.TEXT;
 
-    public FootballBot(String botToken) {
-        this.telegramClient = new OkHttpTelegramClient(botToken);
-    }
+public class FootballBot implements LongPollingUpdateConsumer {
 
-    @Override
-    public void consume(Update update) {
-        if (!update.hasMessage() || !update.getMessage().hasText()) return;
-
-        String msgText = update.getMessage().getText().trim();
-        String[] parts = msgText.split("\\s+", 2);
-        String command = parts[0].toLowerCase();
-        String param = parts.length > 1 ? parts[1] : null;
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
 
-        switch (command) {
-            case "/start" -> {
-                String menu = """
+    private static final String MENU = """
 ⚽ *Bot Calcio Attivo!*
 
 Comandi disponibili:
@@ -34,285 +33,335 @@ Comandi disponibili:
 /topteams "league"
 /relegation "league"
 /form "team" "league"
-/today "league"
+/h2h "team" "team"
+/season "team" ["league"]
+/today ["league"]
+/week ["league"]
 /last "league"
 /leagues
 /league "name"
 /team "name" ["league"]
 /stadium "name"
+/follow "team" | "league"
+/unfollow "team" | "league"
+/following
 
 Esempi:
 /nextmatch "Premier League"
 /form "Arsenal" "Premier League"
 /team "Arsenal"
 """;
-                send(update, menu);
-            }
-
-            case "/ping" -> send(update, "🏓 *Pong!* Connessione attiva.");
-
-            case "/nextmatch" -> {
-                String leagueName = extractFirstQuoted(param);
-                if (leagueName == null) {
-                    send(update, "❌ Usa: /nextmatch \"league\"\nEsempio: /nextmatch \"Premier League\"");
-                    break;
-                }
-                Integer leagueId = LeagueResolver.resolveLeagueId(leagueName);
-                if (leagueId == null) {
-                    send(update, "❌ Lega non trovata: " + leagueName);
-                    break;
-                }
-                send(update, FootballApi.getNextMatch(leagueId));
-            }
-
-            case "/topteams" -> {
-                String leagueName = extractFirstQuoted(param);
-                if (leagueName == null) {
-                    send(update, "❌ Usa: /topteams \"league\"\nEsempio: /topteams \"Serie A\"");
-                    break;
-                }
-                Integer leagueId = LeagueResolver.resolveLeagueId(leagueName);
-                if (leagueId == null) {
-                    send(update, "❌ Lega non trovata: " + leagueName);
-                    break;
-                }
-                send(update, FootballApi.getTopTeams(leagueId));
-            }
 
-            case "/relegation" -> {
-                String leagueName = extractFirstQuoted(param);
-                if (leagueName == null) {
-                    send(update, "❌ Usa: /relegation \"league\"\nEsempio: /relegation \"La Liga\"");
-                    break;
-                }
-                Integer leagueId = LeagueResolver.resolveLeagueId(leagueName);
-                if (leagueId == null) {
-                    send(update, "❌ Lega non trovata: " + leagueName);
-                    break;
-                }
-                send(update, FootballApi.getRelegation(leagueId));
-            }
+    static final CommandRouter ROUTER = buildRouter();
 
-            case "/form" -> {
-                if (param == null) {
-                    send(update, "❌ Usa: /form \"team\" [\"league\"]\nEsempi:\n/form \"Arsenal\" \"Premier League\"\n/form \"Arsenal\"");
-                    break;
-                }
+    private final TelegramClient telegramClient;
 
-                String teamName = null;
-                String leagueName = null;
+    // Risposte in uscita: i gestori accodano e tornano subito
+    private final OutboundQueue outbound;
 
-                try {
-                    // Prima coppia di virgolette (obbligatoria - team)
-                    int firstStart = param.indexOf('"');
-                    int firstEnd = param.indexOf('"', firstStart + 1);
+    // Esegue gli update in parallelo tra chat diverse
+    private final ExecutorService updateExecutor;
 
-                    if (firstStart == -1 || firstEnd == -1) {
-                        send(update, "❌ Usa: /form \"team\" [\"league\"]");
-                        break;
-                    }
-
-                    teamName = param.substring(firstStart + 1, firstEnd);
+    // Ultimo update in coda per ogni chat: i successivi vengono accodati a questo,
+    // così le risposte nella stessa chat arrivano sempre in ordine
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> chatTails = new ConcurrentHashMap<>();
 
-                    // Seconda coppia di virgolette (opzionale - league)
-                    int secondStart = param.indexOf('"', firstEnd + 1);
-                    if (secondStart != -1) {
-                        int secondEnd = param.indexOf('"', secondStart + 1);
-                        if (secondEnd != -1) {
-                            leagueName = param.substring(secondStart + 1, secondEnd);
-                        }
-                    }
-                } catch (Exception e) {
-                    send(update, "❌ Formato errato. Usa: /form \"team\" [\"league\"]");
-                    break;
-                }
+    // Update ricevuti e non ancora elaborati
+    private final AtomicInteger queuedUpdates = new AtomicInteger();
 
-                Integer leagueId = null;
-                if (leagueName != null) {
-                    leagueId = LeagueResolver.resolveLeagueId(leagueName);
-                    if (leagueId == null) {
-                        send(update, "❌ Lega non trovata: " + leagueName);
-                        break;
-                    }
-                }
-
-                Integer teamId = TeamResolver.resolveTeamId(teamName, leagueId);
-                if (teamId == null) {
-                    String msg = leagueName != null
-                            ? "❌ Squadra non trovata: " + teamName + " nella lega " + leagueName
-                            : "❌ Squadra non trovata: " + teamName;
-                    send(update, msg);
-                    break;
-                }
+    public FootballBot(String botToken) {
+        this(createTelegramClient(botToken));
+    }
 
-                send(update, FootballApi.getForm(teamId));
-            }
+    /**
+     * Bot con un client Telegram qualsiasi (benchmark, test di carico, server finti)
+     */
+    public FootballBot(TelegramClient telegramClient) {
+        this.telegramClient = telegramClient;
+        this.outbound = new OutboundQueue(telegramClient);
+        this.updateExecutor = createUpdateExecutor();
+    }
 
-            case "/today" -> {
-                String leagueName = extractFirstQuoted(param);
-                if (leagueName == null) {
-                    send(update, "❌ Usa: /today \"league\"\nEsempio: /today \"Bundesliga\"");
-                    break;
-                }
-                Integer leagueId = LeagueResolver.resolveLeagueId(leagueName);
-                if (leagueId == null) {
-                    send(update, "❌ Lega non trovata: " + leagueName);
-                    break;
-                }
-                send(update, FootballApi.getTodayMatches(leagueId));
-            }
+    private static TelegramClient createTelegramClient(String botToken) {
+        String url = Config.getTelegramApiUrl();
+        if (url == null) return new OkHttpTelegramClient(botToken);
 
-            case "/last" -> {
-                String leagueName = extractFirstQuoted(param);
-                if (leagueName == null) {
-                    send(update, "❌ Usa: /last \"league\"\nEsempio: /last \"Ligue 1\"");
-                    break;
-                }
-                Integer leagueId = LeagueResolver.resolveLeagueId(leagueName);
-                if (leagueId == null) {
-                    send(update, "❌ Lega non trovata: " + leagueName);
-                    break;
-                }
-                send(update, FootballApi.getLastMatch(leagueId));
-            }
-
-            case "/leagues" -> send(update, FootballApi.getLeagues());
+        URI uri = URI.create(url);
+        String schema = uri.getScheme() != null ? uri.getScheme() : "http";
+        int port = uri.getPort() > 0 ? uri.getPort() : ("https".equals(schema) ? 443 : 80);
+        return new OkHttpTelegramClient(botToken, new TelegramUrl(schema, uri.getHost(), port, false));
+    }
 
-            case "/league" -> {
-                String leagueName = extractFirstQuoted(param);
-                if (leagueName == null) {
-                    send(update, "❌ Usa: /league \"name\"\nEsempio: /league \"Premier League\"");
-                    break;
-                }
-                send(update, FootballApi.getLeagueInfo(leagueName));
-            }
+    private static ExecutorService createUpdateExecutor() {
+        if ("fixed".equals(Config.getUpdateExecutor())) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(Config.getUpdateThreads(), r -> {
+                Thread t = new Thread(r, "update-worker-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
 
-            case "/team" -> {
-                if (param == null) {
-                    send(update, "❌ Usa: /team \"squadra\" [\"lega\"]\nEsempi:\n/team \"Arsenal\" \"Premier League\"\n/team \"Arsenal\"");
-                    break;
+    @Override
+    public void consume(List<Update> updates) {
+        for (Update update : updates) {
+            queuedUpdates.incrementAndGet();
+            try {
+                if (!update.hasMessage()) {
+                    updateExecutor.execute(() -> consumeSafely(update));
+                    continue;
                 }
 
-                String teamName = null;
-                String leagueName = null;
-
-                try {
-                    int firstQuoteStart = param.indexOf('"');
-                    int firstQuoteEnd = param.indexOf('"', firstQuoteStart + 1);
-
-                    if (firstQuoteStart == -1 || firstQuoteEnd == -1) {
-                        send(update, "❌ Usa: /team \"squadra\" [\"lega\"]");
-                        break;
+                Long chatId = update.getMessage().getChatId();
+                CompletableFuture<Void> next = chatTails.compute(chatId, (id, tail) ->
+                        (tail != null ? tail : DONE).thenRunAsync(() -> consumeSafely(update), updateExecutor));
+                next.whenComplete((ignored, error) -> {
+                    // Quando la coda della chat si svuota rimuoviamo la voce dalla mappa
+                    chatTails.remove(chatId, next);
+                    // Executor chiuso quando toccava a questo update: consumeSafely non è mai partito
+                    if (error != null && error.getCause() instanceof RejectedExecutionException) {
+                        dropUpdate(update);
                     }
+                });
+            } catch (RejectedExecutionException e) {
+                dropUpdate(update);
+            }
+        }
+    }
 
-                    teamName = param.substring(firstQuoteStart + 1, firstQuoteEnd);
+    // Update arrivato dopo lo shutdown: non verrà elaborato
+    private void dropUpdate(Update update) {
+        queuedUpdates.decrementAndGet();
+        System.err.println("⚠️ Bot in chiusura: update " + update.getUpdateId() + " scartato");
+    }
 
-                    // Cerca la seconda coppia di virgolette (opzionale)
-                    int secondQuoteStart = param.indexOf('"', firstQuoteEnd + 1);
-                    if (secondQuoteStart != -1) {
-                        int secondQuoteEnd = param.indexOf('"', secondQuoteStart + 1);
-                        if (secondQuoteEnd != -1) {
-                            leagueName = param.substring(secondQuoteStart + 1, secondQuoteEnd);
-                        }
-                    }
+    private void consumeSafely(Update update) {
+        try {
+            consume(update);
+        } catch (Exception e) {
+            // Un errore su un update non deve bloccare i successivi della stessa chat
+            e.printStackTrace();
+        } finally {
+            queuedUpdates.decrementAndGet();
+        }
+    }
 
-                } catch (Exception e) {
-                    send(update, "❌ Formato errato. Usa: /team \"squadra\" [\"lega\"]");
-                    break;
-                }
+    /**
+     * Numero di update ricevuti e non ancora elaborati
+     */
+    public int getQueuedUpdates() {
+        return queuedUpdates.get();
+    }
 
-                Integer leagueId = null;
-                if (leagueName != null) {
-                    leagueId = LeagueResolver.resolveLeagueId(leagueName);
-                    if (leagueId == null) {
-                        send(update, "❌ Lega non trovata: " + leagueName);
-                        break;
-                    }
-                }
+    /**
+     * Numero di chat con update ancora in elaborazione
+     */
+    public int getPendingChats() {
+        return chatTails.size();
+    }
 
-                Integer teamId = TeamResolver.resolveTeamId(teamName, leagueId);
-                if (teamId == null) {
-                    String msg = leagueName != null
-                            ? "❌ Squadra non trovata: " + teamName + " nella lega " + leagueName
-                            : "❌ Squadra non trovata: " + teamName;
-                    send(update, msg);
-                    break;
-                }
+    /**
+     * Messaggi in attesa di essere inviati a Telegram
+     */
+    public int getOutboundQueueDepth() {
+        return outbound.getQueueDepth();
+    }
 
-                send(update, FootballApi.getTeamInfo(String.valueOf(teamId), leagueName));
-            }
+    public String describeOutboundStats() {
+        return outbound.describeStats();
+    }
 
-            case "/stadium" -> {
-                String stadiumName = extractFirstQuoted(param);
-                if (stadiumName == null) {
-                    send(update, "❌ Usa: /stadium \"name\"\nEsempio: /stadium \"Emirates Stadium\"");
-                    break;
-                }
-                send(update, FootballApi.getStadiumInfo(stadiumName));
+    /**
+     * Attende la fine degli update in corso, ferma l'executor e svuota la coda di invio
+     */
+    public void shutdown() {
+        updateExecutor.shutdown();
+        try {
+            if (!updateExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                updateExecutor.shutdownNow();
             }
-
-            default -> send(update, "❓ Comando non riconosciuto. Usa /start per il menu.");
+        } catch (InterruptedException e) {
+            updateExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
         }
+        outbound.shutdown(5000);
     }
 
-    /**
-     * Estrae il contenuto della prima coppia di virgolette
-     */
-    private String extractFirstQuoted(String text) {
-        if (text == null) return null;
+    public void consume(Update update) {
+        if (!update.hasMessage() || !update.getMessage().hasText()) return;
 
-        try {
-            int start = text.indexOf('"');
-            int end = text.indexOf('"', start + 1);
+        CommandRouter.Parsed parsed = ROUTER.parse(update.getMessage().getText());
+        // Comando per un altro bot del gruppo ("/start@AltroBot")
+        if (parsed == null) return;
 
-            if (start == -1 || end == -1) return null;
+        // Traccia utente e comando: la scrittura avviene in background, a blocchi
+        long chatId = update.getMessage().getChatId();
+        String username = update.getMessage().getFrom() != null ? update.getMessage().getFrom().getUserName() : null;
+        DatabaseHelper.recordActivity(chatId, username, parsed.command());
 
-            return text.substring(start + 1, end);
-        } catch (Exception e) {
-            return null;
-        }
+        String reply = ROUTER.dispatch(chatId, parsed);
+        if (reply != null) sendText(chatId, reply);
     }
 
     /**
-     * Estrae il contenuto di due coppie di virgolette
-     * @return Array di 2 elementi [primo, secondo] o null se non valido
+     * Tutti i comandi del bot: argomenti, alias e middleware. L'ordine degli
+     * argomenti è quello in cui l'utente li scrive tra virgolette.
      */
-    private String[] extractTwoQuoted(String text) {
-        if (text == null) return null;
+    private static CommandRouter buildRouter() {
+        CommandRouter.Middleware rateLimit = CommandRouter.chatRateLimit(
+                Config.getCommandRatePerMinute(), Config.getCommandBurst());
+
+        // Risposte già pronte, valide finché non cambiano i dati da cui sono costruite
+        CommandRouter.Middleware standingsCache = ReplyCache.cached(FootballBot::standingsVersion);
+        CommandRouter.Middleware calendarCache = ReplyCache.cached(FootballBot::calendarVersion);
+        CommandRouter.Middleware leagueArchiveCache = ReplyCache.cached(FootballBot::leagueArchiveVersion);
+        CommandRouter.Middleware teamArchiveCache = ReplyCache.cached(FootballBot::teamArchiveVersion);
+        CommandRouter.Middleware archiveCache = ReplyCache.cached(ctx -> MatchArchive.version());
+
+        return CommandRouter.builder()
+                .botUsername(Config.getBotUsername())
+                .use(CommandRouter.metrics())
+                .unknown(ctx -> "❓ Comando non riconosciuto. Usa /start per il menu.")
+
+                .command("/start").alias("/help")
+                .handle(ctx -> MENU)
+
+                .command("/ping")
+                .handle(ctx -> "🏓 *Pong!* Connessione attiva.")
+
+                .command("/nextmatch").alias("/next")
+                .arg(LEAGUE, true)
+                .usage("❌ Usa: /nextmatch \"league\"\nEsempio: /nextmatch \"Premier League\"")
+                .use(rateLimit)
+                .useResolved(leagueArchiveCache)
+                .handle(ctx -> FootballApi.getNextMatch(ctx.leagueId()))
+
+                .command("/topteams").alias("/top")
+                .arg(LEAGUE, true)
+                .usage("❌ Usa: /topteams \"league\"\nEsempio: /topteams \"Serie A\"")
+                .use(rateLimit)
+                .useResolved(standingsCache)
+                .handle(ctx -> FootballApi.getTopTeams(ctx.leagueId()))
+
+                .command("/relegation")
+                .arg(LEAGUE, true)
+                .usage("❌ Usa: /relegation \"league\"\nEsempio: /relegation \"La Liga\"")
+                .use(rateLimit)
+                .useResolved(standingsCache)
+                .handle(ctx -> FootballApi.getRelegation(ctx.leagueId()))
+
+                .command("/form")
+                .arg(TEAM, true).arg(LEAGUE, false)
+                .usage("❌ Usa: /form \"team\" [\"league\"]\nEsempi:\n/form \"Arsenal\" \"Premier League\"\n/form \"Arsenal\"")
+                .use(rateLimit)
+                .useResolved(teamArchiveCache)
+                .handle(ctx -> FootballApi.getForm(ctx.teamId()))
+
+                .command("/h2h")
+                .arg(TEAM, true).arg(TEAM, true)
+                .usage("❌ Usa: /h2h \"squadra\" \"squadra\"\nEsempio: /h2h \"Arsenal\" \"Chelsea\"")
+                .useResolved(archiveCache)
+                .handle(ctx -> FootballApi.getHeadToHead(ctx.teamIds().get(0), ctx.teamIds().get(1)))
+
+                .command("/season")
+                .arg(TEAM, true).arg(LEAGUE, false)
+                .usage("❌ Usa: /season \"squadra\" [\"lega\"]\nEsempio: /season \"Arsenal\"")
+                .useResolved(archiveCache)
+                .handle(ctx -> FootballApi.getSeasonRecord(ctx.teamId(), ctx.leagueId()))
+
+                .command("/today")
+                .arg(LEAGUE, false)
+                .use(rateLimit)
+                .useResolved(calendarCache)
+                .handle(ctx -> FootballApi.getTodayMatches(ctx.leagueId()))
+
+                .command("/week")
+                .arg(LEAGUE, false)
+                .use(rateLimit)
+                .useResolved(calendarCache)
+                .handle(ctx -> FootballApi.getWeekMatches(ctx.leagueId()))
+
+                .command("/last")
+                .arg(LEAGUE, true)
+                .usage("❌ Usa: /last \"league\"\nEsempio: /last \"Ligue 1\"")
+                .use(rateLimit)
+                .useResolved(leagueArchiveCache)
+                .handle(ctx -> FootballApi.getLastMatch(ctx.leagueId()))
+
+                .command("/leagues")
+                .handle(ctx -> FootballApi.getLeagues())
+
+                .command("/league")
+                .arg(TEXT, true)
+                .usage("❌ Usa: /league \"name\"\nEsempio: /league \"Premier League\"")
+                .use(rateLimit)
+                .handle(ctx -> FootballApi.getLeagueInfo(ctx.text()))
+
+                .command("/team")
+                .arg(TEAM, true).arg(LEAGUE, false)
+                .usage("❌ Usa: /team \"squadra\" [\"lega\"]\nEsempi:\n/team \"Arsenal\" \"Premier League\"\n/team \"Arsenal\"")
+                .use(rateLimit)
+                .handle(ctx -> FootballApi.getTeamInfo(String.valueOf(ctx.teamId()), ctx.leagueName()))
+
+                .command("/stadium")
+                .arg(TEXT, true)
+                .usage("❌ Usa: /stadium \"name\"\nEsempio: /stadium \"Emirates Stadium\"")
+                .use(rateLimit)
+                .handle(ctx -> FootballApi.getStadiumInfo(ctx.text()))
+
+                .command("/follow")
+                .arg(TEXT, true)
+                .usage("❌ Usa: /follow \"squadra\" oppure /follow \"lega\"\nEsempio: /follow \"Arsenal\"")
+                .handle(ctx -> LiveMatchNotifier.follow(ctx.chatId(), ctx.text()))
+
+                .command("/unfollow")
+                .arg(TEXT, true)
+                .usage("❌ Usa: /unfollow \"squadra\" oppure /unfollow \"lega\"")
+                .handle(ctx -> LiveMatchNotifier.unfollow(ctx.chatId(), ctx.text()))
+
+                .command("/following")
+                .handle(ctx -> LiveMatchNotifier.listFollowing(ctx.chatId()))
 
-        try {
-            // Prima coppia
-            int firstStart = text.indexOf('"');
-            int firstEnd = text.indexOf('"', firstStart + 1);
-
-            if (firstStart == -1 || firstEnd == -1) return null;
+                .build();
+    }
 
-            String first = text.substring(firstStart + 1, firstEnd);
+    // --- Versioni dei dati per le risposte già pronte ---
+    // Solo letture in memoria: caricamenti e sincronizzazioni restano ai comandi
 
-            // Seconda coppia
-            int secondStart = text.indexOf('"', firstEnd + 1);
-            int secondEnd = text.indexOf('"', secondStart + 1);
+    // /topteams, /relegation: la classifica in memoria, se c'è già
+    private static long standingsVersion(CommandRouter.Context ctx) {
+        StandingsStore.Standings table = StandingsStore.peek(ctx.leagueId());
+        return table != null ? table.version() : ReplyCache.NO_CACHE;
+    }
 
-            if (secondStart == -1 || secondEnd == -1) return null;
+    // /today, /week: il calendario, se copre già i giorni e la lega richiesta (altrimenti la risposta viene dall'API)
+    private static long calendarVersion(CommandRouter.Context ctx) {
+        long version = FixtureCalendar.version();
+        if (version == 0) return ReplyCache.NO_CACHE;
+        Integer leagueId = ctx.leagueId();
+        return leagueId == null || FixtureCalendar.getCompetitions().contains(leagueId) ? version : ReplyCache.NO_CACHE;
+    }
 
-            String second = text.substring(secondStart + 1, secondEnd);
+    // /nextmatch, /last: l'archivio, se la lega è già sincronizzata
+    private static long leagueArchiveVersion(CommandRouter.Context ctx) {
+        return MatchArchive.isSynced(ctx.leagueId()) ? MatchArchive.version() : ReplyCache.NO_CACHE;
+    }
 
-            return new String[]{first, second};
-        } catch (Exception e) {
-            return null;
-        }
+    // /form: l'archivio, se contiene già tutte le competizioni in corso della squadra
+    // (altrimenti la risposta viene dall'API)
+    private static long teamArchiveVersion(CommandRouter.Context ctx) {
+        JsonStreams.Team team = ResponseCache.peek("/teams/" + ctx.teamId(), JsonStreams.TEAM);
+        return team != null && MatchArchive.coversAll(team.runningCompetitions())
+                ? MatchArchive.version() : ReplyCache.NO_CACHE;
     }
 
-    private void send(Update update, String text) {
-        SendMessage message = SendMessage.builder()
-                .chatId(update.getMessage().getChatId())
-                .text(text)
-                .parseMode("Markdown")
-                .build();
-        try {
-            telegramClient.execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Accoda un messaggio per una chat qualsiasi (usato anche dalle notifiche live);
+     * l'invio vero e proprio avviene in background nell'OutboundQueue
+     */
+    public void sendText(long chatId, String text) {
+        outbound.enqueue(chatId, text);
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.example.footballbot;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+public class HttpClientPool {
+
+    // Un solo client per tutta l'applicazione: le connessioni restano aperte
+    // (keep-alive) e vengono riusate, evitando handshake TCP/TLS ad ogni comando
+    private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER =
+            PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(Config.getHttpMaxConnections())
+                    .setMaxConnPerRoute(Config.getHttpMaxConnectionsPerRoute())
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(Timeout.ofMilliseconds(Config.getHttpConnectTimeoutMs()))
+                            .setSocketTimeout(Timeout.ofMilliseconds(Config.getHttpSocketTimeoutMs()))
+                            .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                            .build())
+                    .build();
+
+    private static final CloseableHttpClient CLIENT = HttpClients.custom()
+            .setConnectionManager(CONNECTION_MANAGER)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(Config.getHttpConnectTimeoutMs()))
+                    .setResponseTimeout(Timeout.ofMilliseconds(Config.getHttpResponseTimeoutMs()))
+                    .setConnectionKeepAlive(TimeValue.ofSeconds(Config.getHttpKeepAliveSeconds()))
+                    .build())
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofSeconds(Config.getHttpKeepAliveSeconds()))
+            .build();
+
+    public static CloseableHttpClient getClient() {
+        return CLIENT;
+    }
+
+    /**
+     * Statistiche del pool: connessioni in uso, libere e richieste in attesa
+     */
+    public static PoolStats getStats() {
+        return CONNECTION_MANAGER.getTotalStats();
+    }
+
+    public static String describeStats() {
+        PoolStats stats = getStats();
+        return String.format("leased=%d idle=%d pending=%d max=%d",
+                stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+
+    /**
+     * Chiude il client e tutte le connessioni del pool (da chiamare allo spegnimento)
+     */
+    public static void shutdown() {
+        CLIENT.close(CloseMode.GRACEFUL);
+        System.out.println("🔌 HttpClientPool chiuso (" + describeStats() + ")");
+    }
+}
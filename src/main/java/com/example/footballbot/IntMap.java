@@ -0,0 +1,101 @@
+package com.example.footballbot;
+
+/**
+ * Mappa int -> oggetto a indirizzamento aperto: le chiavi stanno in un int[]
+ * (niente Integer né Map.Entry per ogni elemento). Non è thread-safe: viene
+ * riempita da un solo thread e poi pubblicata senza più modificarla.
+ */
+final class IntMap<V> {
+
+    private static final int FREE = 0;
+    // Lo 0 segna gli slot liberi: la chiave 0 (mai usata come id dall'API) ha un posto a parte
+    private boolean hasZero;
+    private Object zeroValue;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    IntMap() {
+        this(8);
+    }
+
+    IntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        if (key == FREE) return hasZero ? (V) zeroValue : null;
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) return (V) values[i];
+            if (k == FREE) return null;
+        }
+    }
+
+    boolean containsKey(int key) {
+        if (key == FREE) return hasZero;
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (key == FREE) {
+            V old = hasZero ? (V) zeroValue : null;
+            if (!hasZero) size++;
+            hasZero = true;
+            zeroValue = value;
+            return old;
+        }
+        if ((size + 1) * 2 > keys.length) resize(keys.length * 2);
+
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            if (keys[i] == FREE) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return null;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Byte occupati dalla tabella (esclusi i valori) */
+    long estimatedBytes() {
+        return 16 + 2 * 16 + 4L * keys.length + 4L * values.length;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int k = oldKeys[j];
+            if (k == FREE) continue;
+            int i = mix(k) & mask;
+            while (keys[i] != FREE) i = (i + 1) & mask;
+            keys[i] = k;
+            values[i] = oldValues[j];
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,428 @@
+package com.example.footballbot;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lettura in streaming delle risposte di football-data.org: i campi che servono
+ * vengono letti direttamente dallo stream HTTP in piccoli record, tutto il resto
+ * (rose, stemmi, arbitri, quote...) viene saltato senza costruire l'albero JSON.
+ */
+public final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    @FunctionalInterface
+    public interface ReadFunction<T> {
+        T read(Reader in) throws IOException;
+    }
+
+    /**
+     * Parser di una risposta: il tipo serve alla cache per riconoscere i valori salvati
+     */
+    public record Parser<T>(String name, Class<T> type, ReadFunction<T> reader) {
+        public T read(Reader in) throws IOException {
+            return reader.read(in);
+        }
+    }
+
+    // --- Record letti dalle risposte ---
+
+    /**
+     * Partita (i gol sono null se la partita non ha ancora un risultato;
+     * seasonStart è la data di inizio della stagione, es. "2024-08-16")
+     */
+    public record Match(int id, int competitionId, String seasonStart, String utcDate, String status,
+                        int homeId, String homeName, int awayId, String awayName,
+                        Integer homeGoals, Integer awayGoals) {
+        public boolean hasScore() {
+            return homeGoals != null && awayGoals != null;
+        }
+    }
+
+    public record MatchList(List<Match> matches) {}
+
+    /** Squadra (runningCompetitions: id delle competizioni in corso, vuota se l'API non le indica) */
+    public record Team(int id, String name, String shortName, String tla, String venue, Integer founded,
+                       List<Integer> runningCompetitions) {}
+
+    public record TeamList(List<Team> teams) {}
+
+    /** Competizione (type: LEAGUE, CUP, PLAYOFFS...) */
+    public record Competition(int id, String name, String code, String type, String areaName,
+                              Integer firstSeason, Integer numberOfTeams) {}
+
+    public record CompetitionList(List<Competition> competitions) {}
+
+    public record StandingRow(int position, int teamId, String teamName, int playedGames,
+                              int points, int goalDifference, String form) {}
+
+    public record StandingsTable(List<StandingRow> rows) {}
+
+    // --- Parser disponibili ---
+
+    /** Corpo della risposta così com'è (solo per usi diagnostici) */
+    public static final Parser<String> RAW = new Parser<>("raw", String.class, JsonStreams::readAll);
+
+    /** /competitions/{id}/matches, /teams/{id}/matches, /matches */
+    public static final Parser<MatchList> MATCHES = new Parser<>("matches", MatchList.class,
+            in -> new MatchList(readRootArray(in, "matches", JsonStreams::readMatch)));
+
+    /** /competitions/{id}/teams */
+    public static final Parser<TeamList> TEAMS = new Parser<>("teams", TeamList.class,
+            in -> new TeamList(readRootArray(in, "teams", JsonStreams::readTeam)));
+
+    /** /teams/{id} */
+    public static final Parser<Team> TEAM = new Parser<>("team", Team.class,
+            in -> readTeam(new JsonReader(in)));
+
+    /** /competitions/{id} */
+    public static final Parser<Competition> COMPETITION = new Parser<>("competition", Competition.class,
+            in -> readCompetition(new JsonReader(in)));
+
+    /** /competitions (catalogo delle competizioni disponibili) */
+    public static final Parser<CompetitionList> COMPETITIONS = new Parser<>("competitions", CompetitionList.class,
+            in -> new CompetitionList(readRootArray(in, "competitions", JsonStreams::readCompetition)));
+
+    /** /competitions/{id}/standings (tabella TOTAL, o la prima se manca) */
+    public static final Parser<StandingsTable> STANDINGS = new Parser<>("standings", StandingsTable.class,
+            in -> readStandings(new JsonReader(in)));
+
+    private static final List<Parser<?>> ALL = List.of(RAW, MATCHES, TEAMS, TEAM, COMPETITION, COMPETITIONS, STANDINGS);
+
+    /**
+     * Parser con il nome indicato (per rileggere la cache salvata su disco), o null
+     */
+    public static Parser<?> parserByName(String name) {
+        for (Parser<?> parser : ALL) {
+            if (parser.name().equals(name)) return parser;
+        }
+        return null;
+    }
+
+    // --- Lettura ---
+
+    @FunctionalInterface
+    private interface ElementReader<T> {
+        T read(JsonReader in) throws IOException;
+    }
+
+    private static String readAll(Reader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            sb.append(buffer, 0, n);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Legge l'array indicato dell'oggetto radice, saltando tutti gli altri campi
+     */
+    private static <T> List<T> readRootArray(Reader reader, String field, ElementReader<T> element) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        List<T> result = new ArrayList<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals(field) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    result.add(element.read(in));
+                }
+                in.endArray();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return result;
+    }
+
+    private static Match readMatch(JsonReader in) throws IOException {
+        int id = 0, competitionId = 0, homeId = 0, awayId = 0;
+        String seasonStart = null, utcDate = null, status = null, homeName = null, awayName = null;
+        Integer[] fullTime = {null, null};
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id" -> id = in.nextInt();
+                case "utcDate" -> utcDate = nextString(in);
+                case "status" -> status = nextString(in);
+                case "competition" -> competitionId = readIdAndName(in, null);
+                case "season" -> seasonStart = readStartDate(in);
+                case "homeTeam" -> {
+                    String[] name = new String[1];
+                    homeId = readIdAndName(in, name);
+                    homeName = name[0];
+                }
+                case "awayTeam" -> {
+                    String[] name = new String[1];
+                    awayId = readIdAndName(in, name);
+                    awayName = name[0];
+                }
+                case "score" -> readFullTime(in, fullTime);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Match(id, competitionId, seasonStart, utcDate, status, homeId, homeName, awayId, awayName,
+                fullTime[0], fullTime[1]);
+    }
+
+    /**
+     * Da un oggetto stagione legge solo startDate
+     */
+    private static String readStartDate(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            return null;
+        }
+        String startDate = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("startDate")) {
+                startDate = nextString(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return startDate;
+    }
+
+    /**
+     * Legge un oggetto {id, name, ...}; il nome va in name[0] se richiesto
+     */
+    private static int readIdAndName(JsonReader in, String[] name) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        int id = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (field.equals("id") && in.peek() == JsonToken.NUMBER) {
+                id = in.nextInt();
+            } else if (field.equals("name") && name != null) {
+                name[0] = nextString(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return id;
+    }
+
+    /**
+     * Legge un array di oggetti {id, ...} tenendo solo gli id
+     */
+    private static List<Integer> readIds(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return List.of();
+        }
+        List<Integer> ids = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            int id = readIdAndName(in, null);
+            if (id != 0) ids.add(id);
+        }
+        in.endArray();
+        return List.copyOf(ids);
+    }
+
+    /**
+     * Dal blocco score legge solo fullTime.home e fullTime.away
+     */
+    private static void readFullTime(JsonReader in, Integer[] goals) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("fullTime") && in.peek() == JsonToken.BEGIN_OBJECT) {
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "home" -> goals[0] = nextInteger(in);
+                        case "away" -> goals[1] = nextInteger(in);
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private static Team readTeam(JsonReader in) throws IOException {
+        int id = 0;
+        String name = null, shortName = null, tla = null, venue = null;
+        Integer founded = null;
+        List<Integer> runningCompetitions = List.of();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id" -> id = in.nextInt();
+                case "name" -> name = nextString(in);
+                case "shortName" -> shortName = nextString(in);
+                case "tla" -> tla = nextString(in);
+                case "venue" -> venue = nextString(in);
+                case "founded" -> founded = nextInteger(in);
+                case "runningCompetitions" -> runningCompetitions = readIds(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Team(id, name, shortName, tla, venue, founded, runningCompetitions);
+    }
+
+    private static Competition readCompetition(JsonReader in) throws IOException {
+        int id = 0;
+        String name = null, code = null, type = null;
+        String[] areaName = new String[1];
+        Integer firstSeason = null, numberOfTeams = null, earliestSeason = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id" -> id = in.nextInt();
+                case "name" -> name = nextString(in);
+                case "code" -> code = nextString(in);
+                case "type" -> type = nextString(in);
+                case "area" -> readIdAndName(in, areaName);
+                case "firstSeason" -> firstSeason = nextInteger(in);
+                case "numberOfTeams" -> numberOfTeams = nextInteger(in);
+                case "seasons" -> earliestSeason = readEarliestSeasonYear(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        // La v4 dell'API non espone firstSeason: lo ricaviamo dalla stagione più vecchia
+        return new Competition(id, name, code, type, areaName[0],
+                firstSeason != null ? firstSeason : earliestSeason, numberOfTeams);
+    }
+
+    private static Integer readEarliestSeasonYear(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        Integer earliest = null;
+        in.beginArray();
+        while (in.hasNext()) {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("startDate")) {
+                    String date = nextString(in);
+                    if (date != null && date.length() >= 4) {
+                        int year = Integer.parseInt(date.substring(0, 4));
+                        if (earliest == null || year < earliest) earliest = year;
+                    }
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+        return earliest;
+    }
+
+    private static StandingsTable readStandings(JsonReader in) throws IOException {
+        List<StandingRow> first = null;
+        List<StandingRow> total = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("standings") || in.peek() != JsonToken.BEGIN_ARRAY) {
+                in.skipValue();
+                continue;
+            }
+            in.beginArray();
+            while (in.hasNext()) {
+                String type = null;
+                List<StandingRow> rows = null;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "type" -> type = nextString(in);
+                        // Le tabelle casa/trasferta vengono saltate appena riconosciute
+                        case "table" -> rows = total == null ? readTable(in) : skip(in);
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                if (first == null) first = rows;
+                if (total == null && "TOTAL".equals(type)) total = rows;
+            }
+            in.endArray();
+        }
+        in.endObject();
+
+        List<StandingRow> table = total != null ? total : first;
+        return new StandingsTable(table != null ? table : List.of());
+    }
+
+    private static List<StandingRow> skip(JsonReader in) throws IOException {
+        in.skipValue();
+        return null;
+    }
+
+    private static List<StandingRow> readTable(JsonReader in) throws IOException {
+        List<StandingRow> rows = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            int position = 0, teamId = 0, playedGames = 0, points = 0, goalDifference = 0;
+            String[] teamName = new String[1];
+            String form = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "position" -> position = in.nextInt();
+                    case "team" -> teamId = readIdAndName(in, teamName);
+                    case "playedGames" -> playedGames = in.nextInt();
+                    case "points" -> points = in.nextInt();
+                    case "goalDifference" -> goalDifference = in.nextInt();
+                    case "form" -> form = nextString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            rows.add(new StandingRow(position, teamId, teamName[0], playedGames, points, goalDifference, form));
+        }
+        in.endArray();
+        return rows;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static Integer nextInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+}
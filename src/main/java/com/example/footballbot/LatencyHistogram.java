@@ -0,0 +1,97 @@
+package com.example.footballbot;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Istogramma delle latenze in stile HDR: bucket a scala logaritmica, ciascuno
+ * diviso in 16 sotto-bucket lineari (errore massimo ~6%). Registrare un valore
+ * è un solo incremento atomico, senza lock e senza allocazioni; i percentili
+ * si calcolano solo quando vengono letti.
+ */
+public class LatencyHistogram {
+
+    // Valori in microsecondi: 32 bucket esatti, poi 16 per ogni potenza di due
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    // Oltre ~18 minuti tutto finisce nell'ultimo bucket
+    private static final long MAX_MICROS = 1L << 30;
+    private static final int BUCKETS = indexOf(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos)));
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.min(Math.max(0, micros), MAX_MICROS);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sumMicros.add(value);
+        if (value > maxMicros.get()) maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int top = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + (top - HALF);
+    }
+
+    /** Valore più alto che finisce nel bucket indicato */
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int k = index - SUB_BUCKETS;
+        int shift = k / HALF + 1;
+        long top = k % HALF + HALF;
+        return ((top + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumMicros() {
+        return sumMicros.sum();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Percentili (0..1) in microsecondi, calcolati su un'unica copia dei bucket
+     */
+    public long[] percentilesMicros(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+
+        long[] result = new long[quantiles.length];
+        if (total == 0) return result;
+
+        long max = maxMicros.get();
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    result[q] = Math.min(highestValueAt(i), max);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
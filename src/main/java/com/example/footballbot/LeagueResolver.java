@@ -1,10 +1,16 @@
 package com.example.footballbot;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class LeagueResolver {
+    // Leghe principali: sempre disponibili (anche senza catalogo), pre-caricate e seguite dal live
     private static final Map<String, Integer> LEAGUE_CACHE = new HashMap<>();
 
     static {
@@ -15,13 +21,101 @@ public class LeagueResolver {
         LEAGUE_CACHE.put("ligue 1", 2015);
     }
 
+    /**
+     * Catalogo delle competizioni dell'abbonamento (/competitions): coppe, serie minori, UCL...
+     *
+     * @param byName nomi normalizzati, con i codici (es. "cl") come alias
+     * @param names  id -> nome ufficiale, nell'ordine dell'API
+     */
+    private record Catalog(NameIndex byName, Map<Integer, String> names) {
+        static final Catalog EMPTY = new Catalog(NameIndex.empty(), Map.of());
+    }
+
+    private static volatile Catalog catalog = Catalog.EMPTY;
+    private static volatile long catalogRetryAt;
+    private static final long CATALOG_RETRY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
     public static Integer resolveLeagueId(String name) {
         if (name == null) return null;
-        return LEAGUE_CACHE.get(name.toLowerCase().trim());
+        Integer id = LEAGUE_CACHE.get(name.toLowerCase().trim());
+        if (id != null) return id;
+
+        // Non è una lega principale: si cerca nel catalogo (caricato alla prima richiesta).
+        // Niente refusi: "Serie B" non deve diventare "Serie A"
+        NameIndex.Match match = loadCatalog().byName().best(TeamResolver.normalize(name));
+        return match != null && match.kind() < NameIndex.FUZZY ? match.id() : null;
     }
 
     // ✅ Nuovo metodo per ottenere tutti i nomi delle leghe
     public static Set<String> getAllLeagueNames() {
         return LEAGUE_CACHE.keySet();
     }
+
+    // ID di tutte le leghe note (senza duplicati)
+    public static Collection<Integer> getAllLeagueIds() {
+        return new LinkedHashSet<>(LEAGUE_CACHE.values());
+    }
+
+    /**
+     * True per le leghe principali, che restano sempre in memoria
+     */
+    public static boolean isCoreLeague(int leagueId) {
+        return LEAGUE_CACHE.containsValue(leagueId);
+    }
+
+    /**
+     * Nome ufficiale della competizione se il catalogo è già stato caricato,
+     * altrimenti il nome della lega principale o l'id
+     */
+    public static String getLeagueName(int leagueId) {
+        String name = catalog.names().get(leagueId);
+        if (name != null) return name;
+        for (Map.Entry<String, Integer> e : LEAGUE_CACHE.entrySet()) {
+            if (e.getValue() == leagueId) return titleCase(e.getKey());
+        }
+        return String.valueOf(leagueId);
+    }
+
+    // "serie a" -> "Serie A"
+    private static String titleCase(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        boolean start = true;
+        for (char c : name.toCharArray()) {
+            sb.append(start ? Character.toUpperCase(c) : c);
+            start = c == ' ';
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Tutte le competizioni del catalogo (id -> nome); vuota se l'API non risponde
+     */
+    public static Map<Integer, String> getCatalog() {
+        return loadCatalog().names();
+    }
+
+    private static Catalog loadCatalog() {
+        Catalog current = catalog;
+        if (!current.names().isEmpty() || System.nanoTime() - catalogRetryAt < 0) return current;
+
+        JsonStreams.CompetitionList list = FootballApi.fetch("/competitions", JsonStreams.COMPETITIONS);
+        if (list == null) {
+            System.err.println("❌ LeagueResolver: catalogo competizioni non disponibile, solo leghe principali");
+            catalogRetryAt = System.nanoTime() + CATALOG_RETRY_NANOS;
+            return current;
+        }
+
+        NameIndex.Builder byName = NameIndex.builder();
+        Map<Integer, String> names = new LinkedHashMap<>();
+        for (JsonStreams.Competition c : list.competitions()) {
+            if (c.name() == null) continue;
+            names.put(c.id(), c.name().intern());
+            byName.add(TeamResolver.normalize(c.name()), c.id(), false);
+            byName.add(TeamResolver.normalize(c.code()), c.id(), true);
+        }
+        Catalog loaded = new Catalog(byName.build(), Collections.unmodifiableMap(names));
+        catalog = loaded;
+        System.out.println("✅ LeagueResolver: " + names.size() + " competizioni nel catalogo");
+        return loaded;
+    }
 }
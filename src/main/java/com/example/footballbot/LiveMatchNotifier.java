@@ -0,0 +1,259 @@
+package com.example.footballbot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Iscrizioni /follow e notifiche live. Un solo poller scarica le partite di oggi
+ * di tutte le leghe note una volta per intervallo, le confronta con lo stato
+ * precedente e invia solo le novità (gol, inizio, intervallo, fine) alle chat
+ * iscritte alla squadra o alla lega.
+ */
+public class LiveMatchNotifier {
+
+    public static final String KIND_TEAM = "team";
+    public static final String KIND_LEAGUE = "league";
+
+    /**
+     * Stato di una partita rilevante per le notifiche
+     */
+    record MatchState(String status, Integer homeGoals, Integer awayGoals) {
+        static MatchState of(JsonStreams.Match m) {
+            return new MatchState(m.status(), m.homeGoals(), m.awayGoals());
+        }
+    }
+
+    private record Target(String kind, int id) {}
+
+    // squadra/lega -> chat iscritte, e per ogni chat il nome mostrato di ogni iscrizione
+    private static final Map<Target, Set<Long>> SUBSCRIBERS = new ConcurrentHashMap<>();
+    private static final Map<Long, Map<Target, String>> BY_CHAT = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService POLLER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "live-poller");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Solo sul thread live-poller
+    private static Map<Integer, MatchState> previous;
+
+    private static volatile BiConsumer<Long, String> sender = (chatId, text) -> { };
+
+    private static final AtomicLong POLLS = new AtomicLong();
+    private static final AtomicLong NOTIFICATIONS = new AtomicLong();
+
+    // Risposte e notifiche: nomi e testo dell'utente protetti per il Markdown
+    private static final MessageTemplate NOT_FOUND = MessageTemplate.compile("❌ Squadra o lega non trovata: {0}");
+    private static final MessageTemplate ALREADY_FOLLOWING = MessageTemplate.compile("ℹ️ Segui già {0}");
+    private static final MessageTemplate FOLLOWING = MessageTemplate.compile(
+            "🔔 Ora segui *{0}*: riceverai gol, inizio e fine delle partite.");
+    private static final MessageTemplate NOT_FOLLOWING = MessageTemplate.compile("ℹ️ Non segui {0}");
+    private static final MessageTemplate UNFOLLOWED = MessageTemplate.compile("🔕 Non segui più *{0}*");
+    private static final MessageTemplate FOLLOWING_LINE = MessageTemplate.compile("• {0}\n");
+    private static final MessageTemplate FINAL = MessageTemplate.compile("🏁 *Finale:* {0} {1} {2}");
+    private static final MessageTemplate GOAL = MessageTemplate.compile("⚽ *GOL!* {0} {1} {2}");
+    private static final MessageTemplate KICK_OFF = MessageTemplate.compile("🟢 *Calcio d'inizio:* {0} vs {1}");
+    private static final MessageTemplate HALF_TIME = MessageTemplate.compile("⏸️ *Intervallo:* {0} {1} {2}");
+    private static final MessageTemplate SECOND_HALF = MessageTemplate.compile("▶️ *Ripresa:* {0} {1} {2}");
+
+    /**
+     * Carica le iscrizioni salvate e avvia il poller
+     *
+     * @param messageSender come inviare un messaggio a una chat (chatId, testo)
+     */
+    public static void start(BiConsumer<Long, String> messageSender) {
+        sender = messageSender;
+        for (DatabaseHelper.SubscriptionRow row : DatabaseHelper.loadSubscriptions()) {
+            register(row.chatId(), new Target(row.kind(), row.targetId()), row.targetName());
+        }
+
+        long interval = Config.getLivePollSeconds();
+        POLLER.scheduleWithFixedDelay(LiveMatchNotifier::pollSafely, interval, interval, TimeUnit.SECONDS);
+        System.out.println("📡 LiveMatchNotifier avviato (" + BY_CHAT.size() + " chat iscritte)");
+    }
+
+    public static void shutdown() {
+        POLLER.shutdownNow();
+    }
+
+    // --- Comandi ---
+
+    /** /follow "squadra" oppure /follow "lega" */
+    public static String follow(long chatId, String name) {
+        Target target = resolve(name);
+        if (target == null) return NOT_FOUND.render(name);
+
+        String displayName = displayName(target, name);
+        if (!register(chatId, target, displayName)) {
+            return ALREADY_FOLLOWING.render(displayName);
+        }
+        DatabaseHelper.addSubscription(chatId, target.kind(), target.id(), displayName);
+        return FOLLOWING.render(displayName);
+    }
+
+    /** /unfollow "squadra" oppure /unfollow "lega" */
+    public static String unfollow(long chatId, String name) {
+        Target target = resolve(name);
+        if (target == null) return NOT_FOUND.render(name);
+
+        Map<Target, String> chatTargets = BY_CHAT.get(chatId);
+        String displayName = chatTargets != null ? chatTargets.remove(target) : null;
+        if (displayName == null) return NOT_FOLLOWING.render(name);
+
+        Set<Long> chats = SUBSCRIBERS.get(target);
+        if (chats != null) chats.remove(chatId);
+        DatabaseHelper.removeSubscription(chatId, target.kind(), target.id());
+        return UNFOLLOWED.render(displayName);
+    }
+
+    /** /following */
+    public static String listFollowing(long chatId) {
+        Map<Target, String> chatTargets = BY_CHAT.get(chatId);
+        if (chatTargets == null || chatTargets.isEmpty()) {
+            return "📭 Non segui nessuna squadra o lega.\nUsa: /follow \"squadra\" oppure /follow \"lega\"";
+        }
+        StringBuilder sb = new StringBuilder("🔔 Stai seguendo:\n");
+        chatTargets.values().stream().sorted().forEach(name -> FOLLOWING_LINE.appendTo(sb, name));
+        return sb.toString();
+    }
+
+    private static Target resolve(String name) {
+        Integer leagueId = LeagueResolver.resolveLeagueId(name);
+        if (leagueId != null) return new Target(KIND_LEAGUE, leagueId);
+        Integer teamId = TeamResolver.resolveTeamId(name, null);
+        return teamId != null ? new Target(KIND_TEAM, teamId) : null;
+    }
+
+    private static String displayName(Target target, String userInput) {
+        if (KIND_TEAM.equals(target.kind())) {
+            String teamName = TeamResolver.getTeamName(target.id());
+            if (teamName != null) return teamName;
+        }
+        return userInput;
+    }
+
+    private static boolean register(long chatId, Target target, String displayName) {
+        SUBSCRIBERS.computeIfAbsent(target, t -> ConcurrentHashMap.newKeySet()).add(chatId);
+        return BY_CHAT.computeIfAbsent(chatId, id -> new ConcurrentHashMap<>())
+                .putIfAbsent(target, displayName) == null;
+    }
+
+    // --- Poller ---
+
+    private static void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            System.err.println("❌ LiveMatchNotifier: errore durante il polling");
+            e.printStackTrace();
+        }
+    }
+
+    private static void poll() {
+        if (SUBSCRIBERS.values().stream().allMatch(Set::isEmpty)) {
+            // Nessuno da avvisare: nessuna richiesta all'API
+            previous = null;
+            return;
+        }
+
+        // Una sola richiesta per le leghe principali e le altre competizioni seguite (partite di oggi)
+        Set<Integer> leagueIds = new LinkedHashSet<>(LeagueResolver.getAllLeagueIds());
+        SUBSCRIBERS.forEach((target, chats) -> {
+            if (KIND_LEAGUE.equals(target.kind()) && !chats.isEmpty()) leagueIds.add(target.id());
+        });
+        String competitions = leagueIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        JsonStreams.MatchList live = FootballApi.refresh("/matches?competitions=" + competitions,
+                JsonStreams.MATCHES, RateLimiter.Priority.BACKGROUND);
+        if (live == null) return;
+        POLLS.incrementAndGet();
+        FixtureCalendar.merge(live);
+
+        Map<Integer, MatchState> current = new HashMap<>();
+        for (JsonStreams.Match m : live.matches()) {
+            current.put(m.id(), MatchState.of(m));
+        }
+
+        // Al primo giro registriamo solo lo stato, senza notificare quello che è già successo
+        if (previous != null) {
+            for (JsonStreams.Match m : live.matches()) {
+                String event = describeChange(m, previous.get(m.id()));
+                if (event != null) fanOut(m, event);
+            }
+        }
+        previous = current;
+    }
+
+    /**
+     * Testo della notifica per il cambiamento rispetto allo stato precedente, o null se nulla di nuovo
+     */
+    static String describeChange(JsonStreams.Match m, MatchState before) {
+        if (before == null) return null;
+        MatchState now = MatchState.of(m);
+        if (now.equals(before)) return null;
+
+        String score = m.hasScore() ? m.homeGoals() + "-" + m.awayGoals() : "0-0";
+        String status = Objects.requireNonNullElse(now.status(), "");
+        String previousStatus = Objects.requireNonNullElse(before.status(), "");
+
+        // Prima i cambi di stato: al calcio d'inizio il punteggio passa da null a 0-0, non è un gol
+        if (status.equals("FINISHED") && !previousStatus.equals("FINISHED")) {
+            return FINAL.render(m.homeName(), score, m.awayName());
+        }
+        if (status.equals("IN_PLAY") && (previousStatus.equals("SCHEDULED") || previousStatus.equals("TIMED"))) {
+            return KICK_OFF.render(m.homeName(), m.awayName());
+        }
+        if (status.equals("PAUSED") && previousStatus.equals("IN_PLAY")) {
+            return HALF_TIME.render(m.homeName(), score, m.awayName());
+        }
+        if (status.equals("IN_PLAY") && previousStatus.equals("PAUSED")) {
+            return SECOND_HALF.render(m.homeName(), score, m.awayName());
+        }
+        if (isGoal(before, now)) {
+            return GOAL.render(m.homeName(), score, m.awayName());
+        }
+        return null;
+    }
+
+    // Gol solo se entrambi i punteggi sono noti e nessuno dei due scende (le correzioni VAR non sono gol)
+    private static boolean isGoal(MatchState before, MatchState now) {
+        if (before.homeGoals() == null || before.awayGoals() == null
+                || now.homeGoals() == null || now.awayGoals() == null) {
+            return false;
+        }
+        int home = now.homeGoals() - before.homeGoals();
+        int away = now.awayGoals() - before.awayGoals();
+        return home >= 0 && away >= 0 && home + away > 0;
+    }
+
+    private static void fanOut(JsonStreams.Match m, String text) {
+        // Una chat iscritta sia alla squadra che alla lega riceve un solo messaggio
+        Set<Long> recipients = new LinkedHashSet<>();
+        for (Target target : List.of(new Target(KIND_TEAM, m.homeId()), new Target(KIND_TEAM, m.awayId()),
+                new Target(KIND_LEAGUE, m.competitionId()))) {
+            recipients.addAll(SUBSCRIBERS.getOrDefault(target, Set.of()));
+        }
+        for (Long chatId : new ArrayList<>(recipients)) {
+            sender.accept(chatId, text);
+            NOTIFICATIONS.incrementAndGet();
+        }
+    }
+
+    public static String describeStats() {
+        return String.format("chats=%d polls=%d notifications=%d", BY_CHAT.size(), POLLS.get(), NOTIFICATIONS.get());
+    }
+}
@@ -7,10 +7,23 @@ public class Main {
     public static void main(String[] args) {
         // 1. Inizializza database
         DatabaseHelper.initDatabase();
+        ResponseCache.warmFromDisk();
+        PrefetchScheduler.start();
 
         // 2. Mostra menu iniziale
         FootballBot bot = new FootballBot(Config.getBotToken());
+        LiveMatchNotifier.start(bot::sendText);
+        MetricsServer.start(bot);
 
+        // Chiusura ordinata delle risorse condivise
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            MetricsServer.shutdown();
+            PrefetchScheduler.shutdown();
+            LiveMatchNotifier.shutdown();
+            bot.shutdown();
+            HttpClientPool.shutdown();
+            DatabaseHelper.shutdown();
+        }));
 
         // 3. Avvia Long Polling
         try (TelegramBotsLongPollingApplication botsApp = new TelegramBotsLongPollingApplication()) {
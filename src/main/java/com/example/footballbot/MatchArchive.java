@@ -0,0 +1,486 @@
+package com.example.footballbot;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Archivio locale delle partite (tabella matches di footballbot.db), indicizzato per
+ * competizione, squadra e data. Ogni competizione viene scaricata per intero una volta,
+ * poi tenuta aggiornata con sincronizzazioni incrementali a partire dal watermark
+ * (dateFrom = primo giorno che può ancora cambiare). /form, /last, /nextmatch, /h2h
+ * e /season diventano query locali sugli indici, senza chiamate di rete.
+ */
+public class MatchArchive {
+
+    /**
+     * Stato della sincronizzazione di una competizione
+     *
+     * @param watermark    primo giorno (UTC) riletto dalla prossima sincronizzazione incrementale
+     * @param fullSyncedAt ultimo scaricamento dell'intera stagione (epoch ms)
+     * @param syncedAt     ultima sincronizzazione riuscita (epoch ms)
+     */
+    record SyncState(LocalDate watermark, long fullSyncedAt, long syncedAt) {}
+
+    /**
+     * Bilancio stagionale di una squadra in una competizione
+     */
+    public record SeasonRecord(int competitionId, String seasonStart, int played, int won, int drawn, int lost,
+                               int goalsFor, int goalsAgainst) {
+        public int points() {
+            return won * 3 + drawn;
+        }
+    }
+
+    private static final String COLUMNS = """
+            id, competition_id, season_start, utc_date, status,
+            home_id, home_name, away_id, away_name, home_goals, away_goals""";
+
+    // Partite che non cambiano più: non trattengono il watermark
+    private static final Set<String> FINAL_STATUSES = Set.of("FINISHED", "AWARDED", "CANCELLED", "POSTPONED", "SUSPENDED");
+
+    // Stato in memoria, riletto dal database all'avvio (competizione -> stato)
+    private static final ConcurrentHashMap<Integer, SyncState> STATES = new ConcurrentHashMap<>();
+    private static volatile boolean statesLoaded;
+
+    private static final SingleFlight<Boolean> SYNCS = new SingleFlight<>();
+    private static final Set<Integer> REFRESHING = ConcurrentHashMap.newKeySet();
+    private static final ExecutorService REFRESHER = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Competizioni la cui sincronizzazione è fallita da poco: fino a questo istante (nanoTime)
+    // i comandi vanno direttamente sull'API invece di riscaricare la stagione
+    private static final ConcurrentHashMap<Integer, Long> RETRY_AFTER = new ConcurrentHashMap<>();
+    private static final long RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private static final AtomicLong FULL_SYNCS = new AtomicLong();
+    private static final AtomicLong DELTA_SYNCS = new AtomicLong();
+    private static final AtomicLong STORED_MATCHES = new AtomicLong();
+
+    // Cresce ad ogni salvataggio di partite (dopo il commit): le risposte pronte la usano come versione
+    private static final AtomicLong VERSION = new AtomicLong(1);
+
+    // --- Sincronizzazione ---
+
+    /**
+     * Aggiorna l'archivio di una competizione: tutta la stagione la prima volta (e ogni
+     * MATCH_FULL_SYNC_HOURS), altrimenti solo i giorni dal watermark a oggi + MATCH_SYNC_AHEAD_DAYS
+     *
+     * @return true se la sincronizzazione è riuscita
+     */
+    public static boolean sync(int competitionId, RateLimiter.Priority priority) {
+        Boolean ok = SYNCS.run(String.valueOf(competitionId), () -> doSync(competitionId, priority));
+        return Boolean.TRUE.equals(ok);
+    }
+
+    private static boolean doSync(int competitionId, RateLimiter.Priority priority) {
+        SyncState state = state(competitionId);
+        long now = System.currentTimeMillis();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        boolean full = state == null
+                || now - state.fullSyncedAt() > TimeUnit.HOURS.toMillis(Config.getMatchFullSyncHours());
+        String endpoint = full
+                ? "/competitions/" + competitionId + "/matches"
+                : "/competitions/" + competitionId + "/matches?dateFrom=" + state.watermark().format(DateTimeFormatter.ISO_DATE)
+                + "&dateTo=" + today.plusDays(Config.getMatchSyncAheadDays()).format(DateTimeFormatter.ISO_DATE);
+
+        JsonStreams.MatchList result = FootballApi.refresh(endpoint, JsonStreams.MATCHES, priority);
+        if (!full) {
+            // Intervalli di date sempre diversi: inutile tenerli nella cache delle risposte
+            ResponseCache.invalidate(endpoint);
+        }
+        if (result == null) {
+            System.err.println("❌ MatchArchive: sincronizzazione fallita per competizione " + competitionId);
+            RETRY_AFTER.put(competitionId, System.nanoTime() + RETRY_BACKOFF_NANOS);
+            return false;
+        }
+
+        SyncState next = new SyncState(watermarkAfter(result.matches(), today),
+                full ? now : state.fullSyncedAt(), now);
+        try {
+            DatabaseHelper.write(db -> {
+                store(db, competitionId, result.matches(), now, next);
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ MatchArchive: errore durante il salvataggio delle partite di " + competitionId);
+            e.printStackTrace();
+            RETRY_AFTER.put(competitionId, System.nanoTime() + RETRY_BACKOFF_NANOS);
+            return false;
+        }
+        STATES.put(competitionId, next);
+        RETRY_AFTER.remove(competitionId);
+
+        (full ? FULL_SYNCS : DELTA_SYNCS).incrementAndGet();
+        if (full) {
+            System.out.println("✅ MatchArchive: " + result.matches().size() + " partite archiviate per competizione "
+                    + competitionId);
+        }
+        return true;
+    }
+
+    /**
+     * Salva partite già scaricate per altri motivi (es. le partite di oggi del pre-caricamento),
+     * senza toccare il watermark. Scrittura asincrona.
+     */
+    public static void record(int competitionId, JsonStreams.MatchList matches) {
+        if (matches == null || matches.matches().isEmpty() || state(competitionId) == null) return;
+        long now = System.currentTimeMillis();
+        DatabaseHelper.writeAsync("❌ MatchArchive: errore durante il salvataggio delle partite di " + competitionId,
+                db -> {
+                    store(db, competitionId, matches.matches(), now, null);
+                    return null;
+                });
+    }
+
+    /**
+     * Primo giorno che può ancora cambiare: ieri (risultati corretti in ritardo), o prima
+     * se c'è una partita passata non ancora conclusa
+     */
+    static LocalDate watermarkAfter(List<JsonStreams.Match> matches, LocalDate today) {
+        LocalDate watermark = today.minusDays(1);
+        for (JsonStreams.Match m : matches) {
+            if (m.utcDate() == null || m.utcDate().length() < 10) continue;
+            if (m.status() != null && FINAL_STATUSES.contains(m.status())) continue;
+            LocalDate day = LocalDate.parse(m.utcDate().substring(0, 10));
+            if (day.isBefore(watermark)) watermark = day;
+        }
+        return watermark;
+    }
+
+    // Solo sul thread db-writer
+    private static void store(DatabaseHelper.PooledConnection db, int competitionId,
+                              List<JsonStreams.Match> matches, long now, SyncState state) throws SQLException {
+        PreparedStatement upsert = db.prepare("""
+            INSERT OR REPLACE INTO matches(id, competition_id, season_start, utc_date, status,
+                home_id, home_name, away_id, away_name, home_goals, away_goals, synced_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """);
+
+        Connection conn = db.connection();
+        conn.setAutoCommit(false);
+        try {
+            int stored = 0;
+            for (JsonStreams.Match m : matches) {
+                if (m.utcDate() == null || m.status() == null) continue;
+                upsert.setInt(1, m.id());
+                upsert.setInt(2, m.competitionId() != 0 ? m.competitionId() : competitionId);
+                upsert.setString(3, m.seasonStart());
+                upsert.setString(4, m.utcDate());
+                upsert.setString(5, m.status());
+                upsert.setInt(6, m.homeId());
+                upsert.setString(7, m.homeName());
+                upsert.setInt(8, m.awayId());
+                upsert.setString(9, m.awayName());
+                setInteger(upsert, 10, m.homeGoals());
+                setInteger(upsert, 11, m.awayGoals());
+                upsert.setLong(12, now);
+                upsert.addBatch();
+                stored++;
+            }
+            upsert.executeBatch();
+
+            if (state != null) {
+                PreparedStatement saveState = db.prepare(
+                        "INSERT OR REPLACE INTO match_sync(competition_id, watermark, full_synced_at, synced_at) VALUES (?, ?, ?, ?)");
+                saveState.setInt(1, competitionId);
+                saveState.setString(2, state.watermark().format(DateTimeFormatter.ISO_DATE));
+                saveState.setLong(3, state.fullSyncedAt());
+                saveState.setLong(4, state.syncedAt());
+                saveState.executeUpdate();
+            }
+            conn.commit();
+            STORED_MATCHES.addAndGet(stored);
+            if (stored > 0) VERSION.incrementAndGet();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static void setInteger(PreparedStatement stmt, int index, Integer value) throws SQLException {
+        if (value != null) stmt.setInt(index, value);
+        else stmt.setNull(index, Types.INTEGER);
+    }
+
+    // --- Freschezza ---
+
+    /**
+     * Prepara l'archivio di una competizione per un comando: se non è mai stata
+     * sincronizzata la scarica subito, se è vecchia la aggiorna in background.
+     * Dopo una sincronizzazione fallita non ritenta prima di RETRY_BACKOFF_NANOS.
+     *
+     * @return true se l'archivio della competizione può rispondere
+     */
+    public static boolean ensureSynced(int competitionId) {
+        SyncState state = state(competitionId);
+        Long retryAfter = RETRY_AFTER.get(competitionId);
+        boolean backingOff = retryAfter != null && System.nanoTime() - retryAfter < 0;
+        if (state == null) {
+            return !backingOff && sync(competitionId, RateLimiter.Priority.INTERACTIVE);
+        }
+        if (!backingOff && System.currentTimeMillis() - state.syncedAt() > Config.getMatchSyncStaleSeconds() * 1000L) {
+            syncAsync(competitionId);
+        }
+        return true;
+    }
+
+    public static void syncAsync(int competitionId) {
+        if (!REFRESHING.add(competitionId)) return;
+        REFRESHER.execute(() -> {
+            try {
+                sync(competitionId, RateLimiter.Priority.BACKGROUND);
+            } finally {
+                REFRESHING.remove(competitionId);
+            }
+        });
+    }
+
+    public static boolean isSynced(int competitionId) {
+        return state(competitionId) != null;
+    }
+
+    /** Versione dei dati dell'archivio: cambia ad ogni salvataggio di partite */
+    public static long version() {
+        return VERSION.get();
+    }
+
+    /** Competizioni presenti nell'archivio */
+    public static Set<Integer> getSyncedCompetitions() {
+        if (!statesLoaded) loadStates();
+        return Set.copyOf(STATES.keySet());
+    }
+
+    private static SyncState state(int competitionId) {
+        if (!statesLoaded) loadStates();
+        return STATES.get(competitionId);
+    }
+
+    private static synchronized void loadStates() {
+        if (statesLoaded) return;
+        try {
+            DatabaseHelper.read(db -> {
+                try (ResultSet rs = db.prepare(
+                        "SELECT competition_id, watermark, full_synced_at, synced_at FROM match_sync").executeQuery()) {
+                    while (rs.next()) {
+                        STATES.putIfAbsent(rs.getInt(1), new SyncState(LocalDate.parse(rs.getString(2)),
+                                rs.getLong(3), rs.getLong(4)));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ MatchArchive: errore durante la lettura dello stato di sincronizzazione:");
+            e.printStackTrace();
+        }
+        statesLoaded = true;
+    }
+
+    // --- Query ---
+
+    /**
+     * Ultime partite concluse di una squadra (dalla più recente), solo dalle competizioni sincronizzate
+     */
+    public static List<JsonStreams.Match> lastFinishedForTeam(int teamId, int limit) {
+        refreshCompetitionsOf(teamId);
+        return query("lastFinishedForTeam", "SELECT " + COLUMNS + """
+                 FROM (
+                    SELECT * FROM matches WHERE home_id = ? AND status = 'FINISHED'
+                    UNION ALL
+                    SELECT * FROM matches WHERE away_id = ? AND status = 'FINISHED'
+                 ) ORDER BY utc_date DESC LIMIT ?
+                """, teamId, teamId, limit);
+    }
+
+    /** Ultima partita conclusa di una competizione, o null */
+    public static JsonStreams.Match lastFinished(int competitionId) {
+        List<JsonStreams.Match> matches = query("lastFinished", "SELECT " + COLUMNS + """
+                 FROM matches WHERE competition_id = ? AND status = 'FINISHED'
+                 ORDER BY utc_date DESC LIMIT 1
+                """, competitionId);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /** Prossima partita in programma di una competizione, o null */
+    public static JsonStreams.Match nextScheduled(int competitionId) {
+        String now = Instant.now().truncatedTo(ChronoUnit.SECONDS).toString();
+        List<JsonStreams.Match> matches = query("nextScheduled", "SELECT " + COLUMNS + """
+                 FROM matches WHERE competition_id = ? AND utc_date >= ? AND status IN ('SCHEDULED', 'TIMED')
+                 ORDER BY utc_date LIMIT 1
+                """, competitionId, now);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Scontri diretti conclusi tra due squadre, dal più recente
+     */
+    public static List<JsonStreams.Match> headToHead(int teamA, int teamB, int limit) {
+        refreshCompetitionsOf(teamA);
+        return query("headToHead", "SELECT " + COLUMNS + """
+                 FROM (
+                    SELECT * FROM matches WHERE home_id = ? AND away_id = ? AND status = 'FINISHED'
+                    UNION ALL
+                    SELECT * FROM matches WHERE home_id = ? AND away_id = ? AND status = 'FINISHED'
+                 ) ORDER BY utc_date DESC LIMIT ?
+                """, teamA, teamB, teamB, teamA, limit);
+    }
+
+    /**
+     * Bilancio della stagione in corso di una squadra, per ogni competizione sincronizzata
+     * (o solo per quella indicata)
+     */
+    public static List<SeasonRecord> seasonRecords(int teamId, Integer competitionId) {
+        refreshCompetitionsOf(teamId);
+        String sql = """
+            SELECT m.competition_id, m.season_start,
+                   COUNT(*),
+                   SUM(CASE WHEN (m.home_id = ?1 AND m.home_goals > m.away_goals)
+                              OR (m.away_id = ?1 AND m.away_goals > m.home_goals) THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN m.home_goals = m.away_goals THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN (m.home_id = ?1 AND m.home_goals < m.away_goals)
+                              OR (m.away_id = ?1 AND m.away_goals < m.home_goals) THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN m.home_id = ?1 THEN m.home_goals ELSE m.away_goals END),
+                   SUM(CASE WHEN m.home_id = ?1 THEN m.away_goals ELSE m.home_goals END)
+            FROM (
+                SELECT * FROM matches WHERE home_id = ?1 AND status = 'FINISHED'
+                UNION ALL
+                SELECT * FROM matches WHERE away_id = ?1 AND status = 'FINISHED'
+            ) m
+            WHERE m.home_goals IS NOT NULL AND m.away_goals IS NOT NULL
+              AND (?2 IS NULL OR m.competition_id = ?2)
+              AND m.season_start = (SELECT MAX(season_start) FROM matches WHERE competition_id = m.competition_id)
+            GROUP BY m.competition_id, m.season_start
+            ORDER BY COUNT(*) DESC
+        """;
+
+        long start = System.nanoTime();
+        List<SeasonRecord> records = new ArrayList<>();
+        try {
+            DatabaseHelper.read(db -> {
+                PreparedStatement stmt = db.prepare(sql);
+                stmt.setInt(1, teamId);
+                if (competitionId != null) stmt.setInt(2, competitionId);
+                else stmt.setNull(2, Types.INTEGER);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        records.add(new SeasonRecord(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getInt(4),
+                                rs.getInt(5), rs.getInt(6), rs.getInt(7), rs.getInt(8)));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ MatchArchive: errore durante il calcolo del bilancio di " + teamId);
+            e.printStackTrace();
+        } finally {
+            Metrics.recordNanos("match_archive_query_seconds", System.nanoTime() - start, "query", "seasonRecords");
+        }
+        return records;
+    }
+
+    /**
+     * True se la squadra ha partite in almeno una competizione sincronizzata
+     */
+    /**
+     * Tutte le competizioni indicate sono sincronizzate (es. quelle in corso di una squadra)
+     */
+    public static boolean coversAll(List<Integer> competitionIds) {
+        if (competitionIds.isEmpty()) return false;
+        for (int competitionId : competitionIds) {
+            if (!isSynced(competitionId)) return false;
+        }
+        return true;
+    }
+
+    public static boolean hasTeam(int teamId) {
+        return !competitionsOf(teamId).isEmpty();
+    }
+
+    /**
+     * Competizioni sincronizzate in cui la squadra ha giocato o giocherà
+     */
+    private static List<Integer> competitionsOf(int teamId) {
+        List<Integer> ids = new ArrayList<>();
+        try {
+            DatabaseHelper.read(db -> {
+                PreparedStatement stmt = db.prepare("""
+                    SELECT competition_id FROM matches WHERE home_id = ?
+                    UNION
+                    SELECT competition_id FROM matches WHERE away_id = ?
+                """);
+                stmt.setInt(1, teamId);
+                stmt.setInt(2, teamId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (isSynced(rs.getInt(1))) ids.add(rs.getInt(1));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ MatchArchive: errore durante la ricerca delle competizioni di " + teamId);
+            e.printStackTrace();
+        }
+        return ids;
+    }
+
+    private static void refreshCompetitionsOf(int teamId) {
+        for (int competitionId : competitionsOf(teamId)) {
+            ensureSynced(competitionId);
+        }
+    }
+
+    private static List<JsonStreams.Match> query(String name, String sql, Object... params) {
+        long start = System.nanoTime();
+        List<JsonStreams.Match> matches = new ArrayList<>();
+        try {
+            DatabaseHelper.read(db -> {
+                PreparedStatement stmt = db.prepare(sql);
+                for (int i = 0; i < params.length; i++) {
+                    stmt.setObject(i + 1, params[i]);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        matches.add(new JsonStreams.Match(rs.getInt(1), rs.getInt(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getInt(6), rs.getString(7),
+                                rs.getInt(8), rs.getString(9), nullableInt(rs, 10), nullableInt(rs, 11)));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ MatchArchive: errore nella query " + name);
+            e.printStackTrace();
+        } finally {
+            Metrics.recordNanos("match_archive_query_seconds", System.nanoTime() - start, "query", name);
+        }
+        return matches;
+    }
+
+    private static Integer nullableInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static String describeStats() {
+        return String.format("competitions=%d fullSyncs=%d deltaSyncs=%d storedMatches=%d",
+                STATES.size(), FULL_SYNCS.get(), DELTA_SYNCS.get(), STORED_MATCHES.get());
+    }
+}
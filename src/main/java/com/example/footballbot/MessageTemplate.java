@@ -0,0 +1,173 @@
+package com.example.footballbot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modello di messaggio Telegram (Markdown) compilato una sola volta: "⚽ *{0}* vs *{1}*".
+ * Il testo fisso viene spezzato in segmenti e ogni segnaposto sa già, dalla posizione,
+ * se si trova dentro un grassetto, un corsivo o un codice; al momento del rendering
+ * restano solo append su uno StringBuilder, con i valori già protetti per quel contesto.
+ * Al posto di String.format, che rianalizza il formato ad ogni chiamata.
+ */
+public final class MessageTemplate {
+
+    /** Contesto Markdown di un segnaposto, deciso alla compilazione */
+    enum Context { TEXT, BOLD, ITALIC, CODE }
+
+    private final String[] literals;
+    private final int[] slots;
+    private final Context[] contexts;
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, int[] slots, Context[] contexts) {
+        this.literals = literals;
+        this.slots = slots;
+        this.contexts = contexts;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    /**
+     * Compila un modello: {0}, {1}, ... sono i valori (anche ripetuti), il resto è Markdown
+     * già valido. Le entità (*, _, `) non possono restare aperte alla fine del modello.
+     */
+    public static MessageTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Context> contexts = new ArrayList<>();
+
+        Context context = Context.TEXT;
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '{') {
+                int close = pattern.indexOf('}', i);
+                if (close < 0) throw new IllegalArgumentException("Segnaposto non chiuso: " + pattern);
+                literals.add(literal.toString());
+                literal.setLength(0);
+                slots.add(Integer.parseInt(pattern.substring(i + 1, close)));
+                contexts.add(context);
+                i = close;
+                continue;
+            }
+            literal.append(c);
+            if (c == '\\' && context == Context.TEXT && i + 1 < pattern.length()) {
+                // Carattere già protetto nel testo fisso
+                literal.append(pattern.charAt(++i));
+            } else if (context == Context.TEXT) {
+                if (c == '*') context = Context.BOLD;
+                else if (c == '_') context = Context.ITALIC;
+                else if (c == '`') context = Context.CODE;
+            } else if (c == closing(context)) {
+                context = Context.TEXT;
+            }
+        }
+        if (context != Context.TEXT) throw new IllegalArgumentException("Entità Markdown non chiusa: " + pattern);
+        literals.add(literal.toString());
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) slotArray[i] = slots.get(i);
+        return new MessageTemplate(literals.toArray(new String[0]), slotArray, contexts.toArray(new Context[0]));
+    }
+
+    private static char closing(Context context) {
+        return switch (context) {
+            case BOLD -> '*';
+            case ITALIC -> '_';
+            case CODE -> '`';
+            case TEXT -> 0;
+        };
+    }
+
+    /** Testo del messaggio; null diventa "N/D" */
+    public String render(Object... values) {
+        StringBuilder sb = new StringBuilder(literalLength + 16 * slots.length);
+        appendTo(sb, values);
+        return sb.toString();
+    }
+
+    /** Aggiunge il messaggio a sb (per le righe di una lista), senza stringhe intermedie */
+    public StringBuilder appendTo(StringBuilder sb, Object... values) {
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            Object value = values[slots[i]];
+            if (value instanceof Integer n) {
+                sb.append(n.intValue());
+            } else {
+                appendEscaped(sb, value != null ? value.toString() : "N/D", contexts[i]);
+            }
+        }
+        return sb.append(literals[slots.length]);
+    }
+
+    // --- Escape ---
+
+    /** Testo libero (nomi, input dell'utente) reso sicuro fuori da ogni entità */
+    public static String escape(String text) {
+        if (text == null) return null;
+        if (!needsEscape(text, Context.TEXT)) return text;
+        StringBuilder sb = new StringBuilder(text.length() + 8);
+        appendEscaped(sb, text, Context.TEXT);
+        return sb.toString();
+    }
+
+    /** Come escape, ma direttamente su sb */
+    public static StringBuilder appendEscaped(StringBuilder sb, String text) {
+        appendEscaped(sb, text != null ? text : "N/D", Context.TEXT);
+        return sb;
+    }
+
+    /**
+     * Markdown di Telegram (parse mode "Markdown"): fuori dalle entità _ * ` [ si proteggono
+     * con \; dentro un'entità il \ non vale e l'unico carattere pericoloso è quello di
+     * chiusura, che si mostra chiudendo l'entità e riaprendola ("*a*\**b*")
+     */
+    static void appendEscaped(StringBuilder sb, String text, Context context) {
+        if (!needsEscape(text, context)) {
+            sb.append(text);
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (context) {
+                case TEXT -> {
+                    if (c == '_' || c == '*' || c == '`' || c == '[') sb.append('\\');
+                    sb.append(c);
+                }
+                case BOLD -> {
+                    if (c == '*') sb.append("*\\**");
+                    else sb.append(c);
+                }
+                case ITALIC -> {
+                    if (c == '_') sb.append("_\\__");
+                    else sb.append(c);
+                }
+                // Nel codice non c'è modo di mostrare un `: lo sostituiamo con un apice
+                case CODE -> sb.append(c == '`' ? '\'' : c);
+            }
+        }
+    }
+
+    private static boolean needsEscape(String text, Context context) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (context) {
+                case TEXT -> {
+                    if (c == '_' || c == '*' || c == '`' || c == '[') return true;
+                }
+                case BOLD -> {
+                    if (c == '*') return true;
+                }
+                case ITALIC -> {
+                    if (c == '_') return true;
+                }
+                case CODE -> {
+                    if (c == '`') return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.footballbot;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Registro delle metriche: contatori (LongAdder), istogrammi delle latenze e
+ * gauge letti al momento. Sul percorso caldo c'è solo una lookup in una
+ * ConcurrentHashMap e un incremento atomico; il testo in formato Prometheus
+ * viene prodotto solo quando qualcuno legge /metrics.
+ */
+public class Metrics {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Una serie: nome della metrica e label già formattate (es. command="/form")
+     */
+    private record Series(String name, String labels) implements Comparable<Series> {
+        @Override
+        public int compareTo(Series other) {
+            int byName = name.compareTo(other.name);
+            return byName != 0 ? byName : labels.compareTo(other.labels);
+        }
+    }
+
+    private static final Map<Series, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<Series, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<Series, Supplier<? extends Number>> GAUGES = new ConcurrentHashMap<>();
+
+    // --- Registrazione ---
+
+    /** Incrementa un contatore, es. increment("api_responses_total", "status", "200") */
+    public static void increment(String name, String... labels) {
+        add(name, 1, labels);
+    }
+
+    public static void add(String name, long delta, String... labels) {
+        COUNTERS.computeIfAbsent(new Series(name, formatLabels(labels)), s -> new LongAdder()).add(delta);
+    }
+
+    /** Registra una durata in nanosecondi nell'istogramma indicato */
+    public static void recordNanos(String name, long nanos, String... labels) {
+        histogram(name, labels).recordNanos(nanos);
+    }
+
+    public static LatencyHistogram histogram(String name, String... labels) {
+        return HISTOGRAMS.computeIfAbsent(new Series(name, formatLabels(labels)), s -> new LatencyHistogram());
+    }
+
+    /** Valore letto solo quando le metriche vengono esportate (code, dimensioni, ...) */
+    public static void gauge(String name, Supplier<? extends Number> value, String... labels) {
+        GAUGES.put(new Series(name, formatLabels(labels)), value);
+    }
+
+    private static String formatLabels(String... labels) {
+        if (labels.length == 0) return "";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // --- Esportazione ---
+
+    /**
+     * Tutte le metriche nel formato testuale di Prometheus. Gli istogrammi sono
+     * esportati come summary (in secondi) più un gauge _max.
+     */
+    public static String render() {
+        StringBuilder out = new StringBuilder(4096);
+
+        String lastName = null;
+        for (Map.Entry<Series, LongAdder> e : new TreeMap<>(COUNTERS).entrySet()) {
+            lastName = typeLine(out, e.getKey().name(), "counter", lastName);
+            sample(out, e.getKey().name(), e.getKey().labels(), e.getValue().sum());
+        }
+
+        lastName = null;
+        for (Map.Entry<Series, Supplier<? extends Number>> e : new TreeMap<>(GAUGES).entrySet()) {
+            Number value;
+            try {
+                value = e.getValue().get();
+            } catch (RuntimeException ex) {
+                continue;
+            }
+            lastName = typeLine(out, e.getKey().name(), "gauge", lastName);
+            sample(out, e.getKey().name(), e.getKey().labels(), value);
+        }
+
+        lastName = null;
+        Map<Series, LatencyHistogram> histograms = new TreeMap<>(HISTOGRAMS);
+        for (Map.Entry<Series, LatencyHistogram> e : histograms.entrySet()) {
+            String name = e.getKey().name();
+            String labels = e.getKey().labels();
+            LatencyHistogram histogram = e.getValue();
+
+            lastName = typeLine(out, name, "summary", lastName);
+            long[] values = histogram.percentilesMicros(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                String quantile = "quantile=\"" + QUANTILES[i] + "\"";
+                sample(out, name, labels.isEmpty() ? quantile : labels + "," + quantile, values[i] / 1e6);
+            }
+            sample(out, name + "_sum", labels, histogram.getSumMicros() / 1e6);
+            sample(out, name + "_count", labels, histogram.getCount());
+        }
+
+        lastName = null;
+        for (Map.Entry<Series, LatencyHistogram> e : histograms.entrySet()) {
+            String name = e.getKey().name() + "_max";
+            lastName = typeLine(out, name, "gauge", lastName);
+            sample(out, name, e.getKey().labels(), e.getValue().getMaxMicros() / 1e6);
+        }
+
+        return out.toString();
+    }
+
+    private static String typeLine(StringBuilder out, String name, String type, String lastName) {
+        if (!name.equals(lastName)) {
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+        return name;
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, Number value) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ');
+        if (value instanceof Double || value instanceof Float) {
+            out.append(value.doubleValue());
+        } else {
+            out.append(value.longValue());
+        }
+        out.append('\n');
+    }
+}
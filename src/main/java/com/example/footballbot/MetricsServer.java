@@ -0,0 +1,99 @@
+package com.example.footballbot;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Piccolo server HTTP (JDK, nessuna dipendenza) che espone le metriche su
+ * /metrics nel formato di Prometheus. Di default ascolta solo in locale.
+ */
+public class MetricsServer {
+
+    private static HttpServer server;
+
+    /**
+     * Registra i gauge dei componenti condivisi e avvia il server, se abilitato (METRICS_PORT > 0)
+     */
+    public static synchronized void start(FootballBot bot) {
+        registerGauges(bot);
+
+        int port = Config.getMetricsPort();
+        if (port <= 0 || server != null) return;
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(Config.getMetricsHost(), port), 0);
+            server.createContext("/metrics", MetricsServer::handle);
+            server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "metrics-http");
+                t.setDaemon(true);
+                return t;
+            }));
+            server.start();
+            System.out.println("📊 Metriche disponibili su http://" + Config.getMetricsHost() + ":" + port + "/metrics");
+        } catch (IOException e) {
+            System.err.println("❌ Impossibile avviare il server delle metriche sulla porta " + port);
+            e.printStackTrace();
+            server = null;
+        }
+    }
+
+    private static void registerGauges(FootballBot bot) {
+        // Code
+        Metrics.gauge("bot_updates_queued", bot::getQueuedUpdates);
+        Metrics.gauge("bot_chats_pending", bot::getPendingChats);
+        Metrics.gauge("telegram_outbound_queued", bot::getOutboundQueueDepth);
+        Metrics.gauge("db_write_behind_queued", DatabaseHelper::getQueueDepth);
+        Metrics.gauge("api_rate_limit_tokens", FootballApi::availableRequestTokens);
+        Metrics.gauge("api_rate_limit_queued", FootballApi::getRateLimitQueueLength);
+
+        // Squadre in memoria
+        Metrics.gauge("team_store_competitions", TeamResolver::getLoadedLeagueCount);
+        Metrics.gauge("team_store_teams", TeamResolver::getLoadedTeamCount);
+        Metrics.gauge("team_store_bytes", TeamResolver::estimatedBytes);
+
+        // Cache delle risposte API
+        Metrics.gauge("api_cache_entries", ResponseCache::size);
+        Metrics.gauge("api_cache_hits", ResponseCache::getHits);
+        Metrics.gauge("api_cache_misses", ResponseCache::getMisses);
+        Metrics.gauge("api_cache_evictions", ResponseCache::getEvictions);
+        Metrics.gauge("api_cache_hit_ratio", () -> {
+            long hits = ResponseCache.getHits();
+            long total = hits + ResponseCache.getMisses();
+            return total == 0 ? 0.0 : (double) hits / total;
+        });
+
+        // Risposte già pronte dei comandi
+        Metrics.gauge("bot_reply_cache_entries", ReplyCache::size);
+        Metrics.gauge("bot_reply_cache_hits", ReplyCache::getHits);
+        Metrics.gauge("bot_reply_cache_misses", ReplyCache::getMisses);
+        Metrics.gauge("bot_reply_cache_evictions", ReplyCache::getEvictions);
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = Metrics.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    public static synchronized void shutdown() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.footballbot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indice immutabile di nomi (già normalizzati) per la ricerca fuzzy.
+ *
+ * - match esatto e per prefisso con ricerca binaria su un array ordinato
+ * - match per sottostringa e con errori di battitura tramite un indice a trigrammi
+ *
+ * I risultati sono ordinati in modo deterministico: tipo di match, poi nome più corto,
+ * poi ordine alfabetico, poi ordine di inserimento.
+ */
+public final class NameIndex {
+
+    // Tipi di match, dal più forte al più debole
+    public static final int EXACT = 0;
+    public static final int EXACT_ALIAS = 1;
+    public static final int PREFIX = 2;
+    public static final int PREFIX_ALIAS = 3;
+    public static final int CONTAINS = 4;
+    public static final int CONTAINS_ALIAS = 5;
+    public static final int FUZZY = 6;
+
+    public record Match(String key, int id, int kind, int distance) {}
+
+    private static final NameIndex EMPTY = new NameIndex(new String[0], new int[0], new boolean[0], Map.of());
+
+    // Voci ordinate per chiave (a parità di chiave, per ordine di inserimento)
+    private final String[] keys;
+    private final int[] ids;
+    private final boolean[] aliases;
+
+    // trigramma -> posizioni (crescenti) delle voci che lo contengono
+    private final Map<String, int[]> trigrams;
+
+    private NameIndex(String[] keys, int[] ids, boolean[] aliases, Map<String, int[]> trigrams) {
+        this.keys = keys;
+        this.ids = ids;
+        this.aliases = aliases;
+        this.trigrams = trigrams;
+    }
+
+    public static NameIndex empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Memoria occupata dall'indice, stimata per una JVM a 64 bit con oop compressi.
+     * Le chiavi non sono contate: sono gli stessi String (internati) delle squadre.
+     */
+    public long estimatedBytes() {
+        if (this == EMPTY) return 0;
+        long bytes = 24 + arrayBytes(4, keys.length) + arrayBytes(4, ids.length) + arrayBytes(1, aliases.length);
+
+        // HashMap: tabella, un nodo per trigramma, il trigramma e la lista delle posizioni
+        int capacity = Integer.highestOneBit(Math.max(1, trigrams.size() * 4 / 3)) << 1;
+        bytes += 48 + arrayBytes(4, capacity);
+        for (Map.Entry<String, int[]> e : trigrams.entrySet()) {
+            bytes += 32 + stringBytes(e.getKey()) + arrayBytes(4, e.getValue().length);
+        }
+        return bytes;
+    }
+
+    /** Stima di un array: intestazione di 16 byte più gli elementi, allineato a 8 */
+    static long arrayBytes(int elementSize, int length) {
+        return align(16 + (long) elementSize * length);
+    }
+
+    /** Stima di uno String (compatto se tutti i caratteri sono Latin-1) */
+    static long stringBytes(String s) {
+        if (s == null) return 0;
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) {
+            latin1 = s.charAt(i) <= 0xFF;
+        }
+        return 24 + arrayBytes(latin1 ? 1 : 2, s.length());
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Miglior risultato per la ricerca, o null se nessuna voce è abbastanza simile
+     */
+    public Match best(String query) {
+        List<Match> matches = search(query, 1);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Tutti i risultati del tipo di match più forte trovato, ordinati, al massimo limit
+     */
+    public List<Match> search(String query, int limit) {
+        if (query == null || query.isEmpty() || keys.length == 0) return List.of();
+
+        List<Match> found = new ArrayList<>();
+
+        // 1. Esatto e prefisso: le chiavi con quel prefisso sono contigue nell'array ordinato
+        int from = lowerBound(query);
+        for (int i = from; i < keys.length && keys[i].startsWith(query); i++) {
+            boolean exact = keys[i].length() == query.length();
+            int kind = exact ? (aliases[i] ? EXACT_ALIAS : EXACT) : (aliases[i] ? PREFIX_ALIAS : PREFIX);
+            found.add(new Match(keys[i], ids[i], kind, keys[i].length() - query.length()));
+        }
+        if (!found.isEmpty()) return ranked(found, limit);
+
+        // 2. Sottostringa: candidati dai trigrammi, poi verifica
+        if (query.length() >= 3) {
+            for (int i : intersect(trigramsOf(query, false))) {
+                if (keys[i].contains(query)) {
+                    found.add(new Match(keys[i], ids[i], aliases[i] ? CONTAINS_ALIAS : CONTAINS,
+                            keys[i].length() - query.length()));
+                }
+            }
+        } else {
+            // Query troppo corta per i trigrammi: le voci sono poche, basta una scansione
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].contains(query)) {
+                    found.add(new Match(keys[i], ids[i], aliases[i] ? CONTAINS_ALIAS : CONTAINS,
+                            keys[i].length() - query.length()));
+                }
+            }
+        }
+        if (!found.isEmpty()) return ranked(found, limit);
+
+        // 3. Errori di battitura: distanza di edit sui candidati che condividono trigrammi
+        int maxDistance = query.length() <= 4 ? 1 : query.length() <= 8 ? 2 : 3;
+        for (int i : candidatesByOverlap(query)) {
+            int d = wordDistance(query, keys[i], maxDistance);
+            if (d <= maxDistance) {
+                found.add(new Match(keys[i], ids[i], FUZZY, d));
+            }
+        }
+        return ranked(found, limit);
+    }
+
+    private static List<Match> ranked(List<Match> found, int limit) {
+        // L'ordinamento è stabile: a parità di tutto resta l'ordine di inserimento
+        found.sort(Comparator.comparingInt(Match::kind)
+                .thenComparingInt(Match::distance)
+                .thenComparing(Match::key));
+
+        // Una squadra trovata sia per nome che per alias compare una volta sola
+        List<Match> result = new ArrayList<>(Math.min(limit, found.size()));
+        for (Match m : found) {
+            if (result.size() == limit) break;
+            boolean seen = false;
+            for (Match r : result) {
+                if (r.id() == m.id()) {
+                    seen = true;
+                    break;
+                }
+            }
+            if (!seen) result.add(m);
+        }
+        return result;
+    }
+
+    private int lowerBound(String query) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(query) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Voci che contengono tutti i trigrammi indicati (intersezione di liste ordinate)
+     */
+    private int[] intersect(List<String> grams) {
+        int[] result = null;
+        for (String g : grams) {
+            int[] postings = trigrams.get(g);
+            if (postings == null) return new int[0];
+            if (result == null) {
+                result = postings;
+                continue;
+            }
+            int[] next = new int[Math.min(result.length, postings.length)];
+            int n = 0, a = 0, b = 0;
+            while (a < result.length && b < postings.length) {
+                if (result[a] == postings[b]) {
+                    next[n++] = result[a];
+                    a++;
+                    b++;
+                } else if (result[a] < postings[b]) {
+                    a++;
+                } else {
+                    b++;
+                }
+            }
+            result = Arrays.copyOf(next, n);
+        }
+        return result != null ? result : new int[0];
+    }
+
+    /**
+     * Voci che condividono abbastanza trigrammi con la query da poter essere un refuso
+     */
+    private int[] candidatesByOverlap(String query) {
+        List<String> grams = trigramsOf(query, true);
+        int[] counts = new int[keys.length];
+        for (String g : grams) {
+            int[] postings = trigrams.get(g);
+            if (postings == null) continue;
+            for (int i : postings) counts[i]++;
+        }
+        // Ogni errore di battitura distrugge al massimo 3 trigrammi
+        int needed = Math.max(1, grams.size() - 3 * (query.length() <= 4 ? 1 : query.length() <= 8 ? 2 : 3));
+        int[] result = new int[keys.length];
+        int n = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] >= needed) result[n++] = i;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Trigrammi distinti di una stringa; con padding include inizio e fine parola
+     */
+    static List<String> trigramsOf(String s, boolean padded) {
+        String text = padded ? " " + s + " " : s;
+        List<String> grams = new ArrayList<>(Math.max(0, text.length() - 2));
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            String g = text.substring(i, i + 3);
+            if (!grams.contains(g)) grams.add(g);
+        }
+        return grams;
+    }
+
+    /**
+     * Distanza minima tra la query e un tratto del nome che inizia a inizio parola
+     * (così "arsnal" trova "arsenal fc" e "munchen" trova "fc bayern munchen")
+     */
+    static int wordDistance(String query, String key, int max) {
+        int best = max + 1;
+        int start = 0;
+        while (start < key.length() && best > 0) {
+            int end = Math.min(key.length(), start + query.length() + max);
+            best = Math.min(best, prefixDistance(query, key.substring(start, end), max));
+
+            int space = key.indexOf(' ', start);
+            if (space < 0) break;
+            start = space + 1;
+        }
+        return best;
+    }
+
+    /**
+     * Distanza di Levenshtein tra a e il prefisso di b più simile,
+     * interrotta appena supera max (restituisce max + 1)
+     */
+    static int prefixDistance(String a, String b, int max) {
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > max) return max + 1;
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+
+        int best = max + 1;
+        for (int d : prev) best = Math.min(best, d);
+        return best;
+    }
+
+    public static final class Builder {
+        private final List<String> keys = new ArrayList<>();
+        private final List<Integer> ids = new ArrayList<>();
+        private final List<Boolean> aliases = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Aggiunge un nome; le chiavi vuote vengono ignorate
+         */
+        public Builder add(String key, int id, boolean alias) {
+            if (key != null && !key.isEmpty()) {
+                keys.add(key);
+                ids.add(id);
+                aliases.add(alias);
+            }
+            return this;
+        }
+
+        public NameIndex build() {
+            int n = keys.size();
+            if (n == 0) return EMPTY;
+
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            // Ordinamento stabile: le chiavi uguali mantengono l'ordine di inserimento
+            Arrays.sort(order, Comparator.comparing(keys::get));
+
+            String[] sortedKeys = new String[n];
+            int[] sortedIds = new int[n];
+            boolean[] sortedAliases = new boolean[n];
+            Map<String, List<Integer>> postings = new HashMap<>();
+            for (int pos = 0; pos < n; pos++) {
+                int i = order[pos];
+                sortedKeys[pos] = keys.get(i);
+                sortedIds[pos] = ids.get(i);
+                sortedAliases[pos] = aliases.get(i);
+                for (String g : trigramsOf(sortedKeys[pos], true)) {
+                    postings.computeIfAbsent(g, k -> new ArrayList<>()).add(pos);
+                }
+            }
+
+            Map<String, int[]> trigrams = new HashMap<>(postings.size() * 2);
+            postings.forEach((g, list) -> trigrams.put(g, list.stream().mapToInt(Integer::intValue).toArray()));
+            return new NameIndex(sortedKeys, sortedIds, sortedAliases, trigrams);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.footballbot;
+
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coda dei messaggi in uscita verso Telegram. I gestori dei comandi accodano la
+ * risposta e tornano subito; un solo thread la invia con executeAsync rispettando
+ * il limite globale (~30 msg/s) e quello per chat (~1 msg/s). Più messaggi in
+ * attesa per la stessa chat vengono uniti in uno solo, e un 429 rimette il
+ * messaggio in testa alla coda della chat fino a scadenza del retry_after.
+ */
+public class OutboundQueue {
+
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String SEPARATOR = "\n\n";
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Messaggi in attesa per una chat. Tutti i campi sono protetti da lock.
+     */
+    private static final class ChatQueue {
+        final long chatId;
+        final ArrayDeque<String> pending = new ArrayDeque<>();
+        // In coda tra le chat pronte oppure con un invio in corso
+        boolean scheduled;
+        long nextAllowedAt;
+        long order;
+        int attempts;
+
+        ChatQueue(long chatId, long now) {
+            this.chatId = chatId;
+            this.nextAllowedAt = now;
+        }
+    }
+
+    private final TelegramClient client;
+    private final double messagesPerNano;
+    private final double burst;
+    private final long chatIntervalNanos;
+    private final int maxPendingPerChat;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Long, ChatQueue> chats = new HashMap<>();
+    // Chat con messaggi da inviare, in ordine di quando possono ricevere il prossimo
+    private final PriorityQueue<ChatQueue> ready = new PriorityQueue<>(
+            Comparator.<ChatQueue>comparingLong(q -> q.nextAllowedAt).thenComparingLong(q -> q.order));
+    private final Thread dispatcher;
+
+    private double tokens;
+    private long lastRefill;
+    private long lastPrune;
+    private long orderCounter;
+    private int inFlight;
+    private int pendingMessages;
+    private boolean running = true;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public OutboundQueue(TelegramClient client) {
+        this.client = client;
+        this.burst = Math.max(1, Config.getTelegramMessagesPerSecond());
+        this.messagesPerNano = burst / TimeUnit.SECONDS.toNanos(1);
+        this.chatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Config.getTelegramChatIntervalMs());
+        this.maxPendingPerChat = Math.max(1, Config.getTelegramMaxPendingPerChat());
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+        this.lastPrune = lastRefill;
+
+        this.dispatcher = new Thread(this::dispatchLoop, "telegram-sender");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Accoda un messaggio Markdown per una chat e ritorna subito
+     */
+    public void enqueue(long chatId, String text) {
+        if (text == null || text.isEmpty()) return;
+
+        lock.lock();
+        try {
+            if (!running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            ChatQueue queue = chats.computeIfAbsent(chatId, id -> new ChatQueue(id, System.nanoTime()));
+            if (queue.pending.size() >= maxPendingPerChat) {
+                // Chat sommersa (es. molte notifiche live): scartiamo la più vecchia
+                queue.pending.pollFirst();
+                pendingMessages--;
+                dropped.incrementAndGet();
+            }
+            queue.pending.addLast(text);
+            pendingMessages++;
+            enqueued.incrementAndGet();
+            schedule(queue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Da chiamare con lock acquisito
+    private void schedule(ChatQueue queue) {
+        if (queue.scheduled || queue.pending.isEmpty()) return;
+        queue.scheduled = true;
+        queue.order = orderCounter++;
+        ready.add(queue);
+        changed.signalAll();
+    }
+
+    private void dispatchLoop() {
+        lock.lock();
+        try {
+            while (running || !ready.isEmpty() || inFlight > 0) {
+                long now = System.nanoTime();
+                refill(now);
+                prune(now);
+
+                ChatQueue head = ready.peek();
+                if (head == null) {
+                    changed.await();
+                    continue;
+                }
+
+                long wait = Math.max(head.nextAllowedAt - now, nanosUntilToken());
+                if (wait > 0) {
+                    changed.awaitNanos(wait);
+                    continue;
+                }
+
+                ready.poll();
+                tokens -= 1;
+                String text = takeBatch(head);
+                inFlight++;
+                send(head, text);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Prende il primo messaggio della chat e ci unisce i successivi finché stanno
+     * nel limite di lunghezza di Telegram
+     */
+    private String takeBatch(ChatQueue queue) {
+        StringBuilder batch = new StringBuilder(queue.pending.pollFirst());
+        pendingMessages--;
+        while (!queue.pending.isEmpty()
+                && batch.length() + SEPARATOR.length() + queue.pending.peekFirst().length() <= MAX_MESSAGE_LENGTH) {
+            batch.append(SEPARATOR).append(queue.pending.pollFirst());
+            pendingMessages--;
+            merged.incrementAndGet();
+        }
+        return batch.toString();
+    }
+
+    private void send(ChatQueue queue, String text) {
+        SendMessage message = SendMessage.builder()
+                .chatId(queue.chatId)
+                .text(text)
+                .parseMode("Markdown")
+                .build();
+        try {
+            client.executeAsync(message).whenComplete((result, error) -> completed(queue, text, error));
+        } catch (TelegramApiException | RuntimeException e) {
+            completed(queue, text, e);
+        }
+    }
+
+    private void completed(ChatQueue queue, String text, Throwable error) {
+        lock.lock();
+        try {
+            inFlight--;
+            long now = System.nanoTime();
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                sent.incrementAndGet();
+                queue.attempts = 0;
+                queue.nextAllowedAt = now + chatIntervalNanos;
+            } else if (retryAfterSeconds(cause) > 0) {
+                // Troppe richieste: stesso messaggio, in testa, dopo l'attesa indicata da Telegram
+                throttled.incrementAndGet();
+                queue.pending.addFirst(text);
+                pendingMessages++;
+                queue.nextAllowedAt = now + TimeUnit.SECONDS.toNanos(retryAfterSeconds(cause));
+                System.err.println("⚠️ Telegram 429 per la chat " + queue.chatId
+                        + ": nuovo tentativo tra " + retryAfterSeconds(cause) + "s");
+            } else if (!(cause instanceof TelegramApiRequestException) && ++queue.attempts < MAX_ATTEMPTS) {
+                // Errore di rete: riproviamo con un'attesa crescente
+                retried.incrementAndGet();
+                queue.pending.addFirst(text);
+                pendingMessages++;
+                queue.nextAllowedAt = now + queue.attempts * TimeUnit.SECONDS.toNanos(1);
+            } else {
+                // Errore definitivo (chat bloccata, Markdown non valido, ...): scartiamo il messaggio
+                dropped.incrementAndGet();
+                queue.attempts = 0;
+                queue.nextAllowedAt = now + chatIntervalNanos;
+                System.err.println("❌ Invio fallito per la chat " + queue.chatId + ":");
+                cause.printStackTrace();
+            }
+
+            queue.scheduled = false;
+            schedule(queue);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int retryAfterSeconds(Throwable error) {
+        if (error instanceof TelegramApiRequestException request
+                && request.getErrorCode() != null && request.getErrorCode() == 429) {
+            ResponseParameters parameters = request.getParameters();
+            Integer retryAfter = parameters != null ? parameters.getRetryAfter() : null;
+            return retryAfter != null && retryAfter > 0 ? retryAfter : 1;
+        }
+        return 0;
+    }
+
+    // --- Token bucket globale (con lock acquisito) ---
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * messagesPerNano);
+        lastRefill = now;
+    }
+
+    private long nanosUntilToken() {
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / messagesPerNano);
+    }
+
+    /**
+     * Rimuove le chat inattive il cui intervallo minimo è già trascorso
+     */
+    private void prune(long now) {
+        if (now - lastPrune < PRUNE_INTERVAL_NANOS) return;
+        lastPrune = now;
+        chats.values().removeIf(q -> !q.scheduled && q.pending.isEmpty() && q.nextAllowedAt <= now);
+    }
+
+    /**
+     * Messaggi in attesa di invio (esclusi quelli già in volo)
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return pendingMessages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Smette di accettare messaggi e attende che la coda si svuoti
+     */
+    public void shutdown(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            running = false;
+            changed.signalAll();
+            while ((pendingMessages > 0 || inFlight > 0) && deadline - System.nanoTime() > 0) {
+                changed.awaitNanos(deadline - System.nanoTime());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        dispatcher.interrupt();
+    }
+
+    public String describeStats() {
+        return String.format("queued=%d enqueued=%d sent=%d merged=%d retried=%d throttled=%d dropped=%d",
+                getQueueDepth(), enqueued.get(), sent.get(), merged.get(), retried.get(), throttled.get(), dropped.get());
+    }
+}
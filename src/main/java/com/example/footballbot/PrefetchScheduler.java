@@ -0,0 +1,185 @@
+package com.example.footballbot;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggiorna in background classifiche, partite di oggi, archivio delle partite e squadre
+ * delle leghe note, così i comandi trovano quasi sempre i dati già in cache.
+ * La frequenza si adatta alla lega: veloce con partite in corso, lenta di notte,
+ * e ogni ciclo viene rimandato se il budget di richieste è quasi esaurito.
+ */
+public class PrefetchScheduler {
+
+    enum Phase { LIVE, MATCHDAY, IDLE, NIGHT }
+
+    // Ritardo quando il budget di richieste non basta per un ciclo
+    private static final long POSTPONE_SECONDS = 15;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "prefetch-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final ExecutorService WORKERS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static final Map<Integer, Phase> PHASES = new ConcurrentHashMap<>();
+    private static final AtomicLong CYCLES = new AtomicLong();
+    private static final AtomicLong POSTPONED = new AtomicLong();
+
+    public static void start() {
+        if (!Config.isPrefetchEnabled()) {
+            System.out.println("⏸️ PrefetchScheduler disattivato");
+            return;
+        }
+
+        // Squadre: caricate subito (dalla cache se possibile) e riscaricate una volta al giorno
+        WORKERS.execute(TeamResolver::loadAllTeams);
+        SCHEDULER.scheduleWithFixedDelay(() -> WORKERS.execute(PrefetchScheduler::refreshTeams),
+                24, 24, TimeUnit.HOURS);
+
+        // Calendario di tutte le competizioni seguite (/today, /week): una richiesta per tutte
+        long calendarInterval = Config.getCalendarRefreshSeconds();
+        SCHEDULER.scheduleWithFixedDelay(() -> WORKERS.execute(() -> FixtureCalendar.load(RateLimiter.Priority.BACKGROUND)),
+                1, calendarInterval, TimeUnit.SECONDS);
+
+        // Partenze sfalsate per non consumare tutto il budget nello stesso istante
+        long delay = 5;
+        for (int leagueId : LeagueResolver.getAllLeagueIds()) {
+            schedule(leagueId, delay);
+            delay += 10;
+        }
+        System.out.println("🔄 PrefetchScheduler avviato per " + LeagueResolver.getAllLeagueIds().size() + " leghe");
+    }
+
+    public static void shutdown() {
+        SCHEDULER.shutdownNow();
+        WORKERS.shutdownNow();
+    }
+
+    private static void schedule(int leagueId, long delaySeconds) {
+        try {
+            SCHEDULER.schedule(() -> WORKERS.execute(() -> runCycle(leagueId)), delaySeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // Spegnimento in corso
+        }
+    }
+
+    private static void runCycle(int leagueId) {
+        long next;
+        try {
+            next = refreshLeague(leagueId);
+        } catch (RuntimeException e) {
+            System.err.println("❌ PrefetchScheduler: errore per lega " + leagueId);
+            e.printStackTrace();
+            next = Config.getPrefetchMatchdaySeconds();
+        }
+        schedule(leagueId, next);
+    }
+
+    /**
+     * Un ciclo di aggiornamento per una lega
+     *
+     * @return secondi prima del prossimo ciclo
+     */
+    private static long refreshLeague(int leagueId) {
+        Phase previous = PHASES.getOrDefault(leagueId, Phase.IDLE);
+
+        // Durante le partite servono solo partite di oggi e classifica, altrimenti anche l'archivio
+        int cost = previous == Phase.LIVE ? 2 : 3;
+        if (FootballApi.availableRequestTokens() < cost + Config.getPrefetchReservedRequests()) {
+            POSTPONED.incrementAndGet();
+            return POSTPONE_SECONDS;
+        }
+
+        LocalDate today = LocalDate.now(Config.getZoneId());
+        JsonStreams.MatchList todayMatches = FootballApi.refresh(
+                FootballApi.matchesOnDatePath(leagueId, today), JsonStreams.MATCHES, RateLimiter.Priority.BACKGROUND);
+        Phase phase = todayMatches != null ? phaseOf(todayMatches, Instant.now()) : previous;
+        // I risultati di oggi entrano subito nell'archivio e nel calendario, anche durante le partite
+        MatchArchive.record(leagueId, todayMatches);
+        FixtureCalendar.merge(todayMatches);
+
+        StandingsStore.refresh(leagueId, RateLimiter.Priority.BACKGROUND);
+        if (phase != Phase.LIVE) {
+            // Prossime e ultime partite: una sincronizzazione incrementale dell'archivio
+            MatchArchive.sync(leagueId, RateLimiter.Priority.BACKGROUND);
+        }
+
+        if (phase != previous) {
+            System.out.println("🔄 PrefetchScheduler: lega " + leagueId + " → " + phase);
+        }
+        PHASES.put(leagueId, phase);
+        CYCLES.incrementAndGet();
+        return delayFor(phase);
+    }
+
+    /**
+     * Stato della lega in base alle partite di oggi
+     */
+    static Phase phaseOf(JsonStreams.MatchList todayMatches, Instant now) {
+        boolean matchday = false;
+        for (JsonStreams.Match m : todayMatches.matches()) {
+            String status = m.status() != null ? m.status() : "";
+            switch (status) {
+                case "IN_PLAY", "PAUSED", "LIVE" -> {
+                    return Phase.LIVE;
+                }
+                case "SCHEDULED", "TIMED" -> {
+                    Instant kickoff = parseInstant(m.utcDate());
+                    // Poco prima del calcio d'inizio si passa già alla frequenza "live"
+                    if (kickoff != null && Duration.between(now, kickoff).toMinutes() <= 10) {
+                        return Phase.LIVE;
+                    }
+                    matchday = true;
+                }
+                default -> {
+                }
+            }
+        }
+        if (matchday) return Phase.MATCHDAY;
+
+        LocalTime localTime = LocalTime.now(Config.getZoneId());
+        return localTime.getHour() >= 1 && localTime.getHour() < 8 ? Phase.NIGHT : Phase.IDLE;
+    }
+
+    private static long delayFor(Phase phase) {
+        return switch (phase) {
+            case LIVE -> Config.getPrefetchLiveSeconds();
+            case MATCHDAY -> Config.getPrefetchMatchdaySeconds();
+            case IDLE -> Config.getPrefetchIdleSeconds();
+            case NIGHT -> Config.getPrefetchNightSeconds();
+        };
+    }
+
+    private static void refreshTeams() {
+        for (int leagueId : LeagueResolver.getAllLeagueIds()) {
+            TeamResolver.refreshLeague(leagueId);
+        }
+        TeamResolver.evictColdLeagues();
+    }
+
+    private static Instant parseInstant(String utcDate) {
+        if (utcDate == null) return null;
+        try {
+            return Instant.parse(utcDate);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public static String describeStats() {
+        return String.format("cycles=%d postponed=%d phases=%s", CYCLES.get(), POSTPONED.get(), PHASES);
+    }
+}
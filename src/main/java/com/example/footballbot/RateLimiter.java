@@ -0,0 +1,160 @@
+package com.example.footballbot;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket per rispettare il limite di richieste al minuto di football-data.org.
+ * Le richieste attendono in coda in ordine di arrivo; quelle interattive (comandi
+ * degli utenti) passano sempre prima di quelle in background (pre-caricamenti).
+ */
+public class RateLimiter {
+
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition changed = lock.newCondition();
+
+    private final Deque<Object> interactiveQueue = new ArrayDeque<>();
+    private final Deque<Object> backgroundQueue = new ArrayDeque<>();
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    public RateLimiter(int requestsPerMinute) {
+        this.capacity = Math.max(1, requestsPerMinute);
+        this.tokensPerNano = capacity / TimeUnit.MINUTES.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    /**
+     * Attende un permesso per una richiesta
+     *
+     * @param priority priorità della richiesta
+     * @param maxWaitMs attesa massima in millisecondi
+     * @return true se il permesso è stato ottenuto, false se il tempo è scaduto
+     */
+    public boolean acquire(Priority priority, long maxWaitMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        Deque<Object> queue = priority == Priority.INTERACTIVE ? interactiveQueue : backgroundQueue;
+        Object ticket = new Object();
+
+        lock.lock();
+        try {
+            queue.addLast(ticket);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+
+                    boolean myTurn = queue.peekFirst() == ticket
+                            && (priority == Priority.INTERACTIVE || interactiveQueue.isEmpty());
+                    if (myTurn && now >= pausedUntil && tokens >= 1) {
+                        tokens -= 1;
+                        return true;
+                    }
+
+                    long remaining = deadline - now;
+                    if (remaining <= 0) return false;
+
+                    // Chi è in testa dorme solo fino al prossimo token, gli altri
+                    // vengono svegliati quando la coda avanza
+                    long wait = myTurn ? nanosUntilAvailable(now) : remaining;
+                    changed.awaitNanos(Math.min(remaining, Math.max(wait, TimeUnit.MILLISECONDS.toNanos(1))));
+                }
+            } finally {
+                queue.remove(ticket);
+                changed.signalAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Allinea il bucket con i contatori restituiti dall'API
+     * (X-Requests-Available-Minute e X-RequestCounter-Reset)
+     */
+    public void updateFromServer(int availableThisMinute, int resetSeconds) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            refill(now);
+            if (availableThisMinute < tokens) {
+                tokens = Math.max(0, availableThisMinute);
+            }
+            if (availableThisMinute <= 0 && resetSeconds > 0) {
+                pauseUntil(now + TimeUnit.SECONDS.toNanos(resetSeconds));
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocca tutte le richieste per il tempo indicato (es. dopo un 429)
+     */
+    public void pause(int seconds) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            tokens = 0;
+            lastRefill = now;
+            pauseUntil(now + TimeUnit.SECONDS.toNanos(Math.max(1, seconds)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double availableTokens() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            return System.nanoTime() < pausedUntil ? 0 : tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queueLength() {
+        lock.lock();
+        try {
+            return interactiveQueue.size() + backgroundQueue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void pauseUntil(long until) {
+        if (until > pausedUntil) {
+            pausedUntil = until;
+            // Durante la pausa il bucket non si riempie
+            lastRefill = Math.max(lastRefill, until);
+        }
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+
+    private long nanosUntilAvailable(long now) {
+        long untilResume = pausedUntil - now;
+        long untilToken = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        return Math.max(untilResume, untilToken);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.footballbot;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Risposte già pronte, per comando, argomenti risolti e versione dei dati: finché la
+ * classifica, il calendario o l'archivio non cambiano, la stessa richiesta riceve
+ * esattamente lo stesso testo senza rifare query né formattazione. Si aggancia
+ * ai comandi come middleware dopo la risoluzione degli argomenti.
+ */
+public class ReplyCache {
+
+    /**
+     * Versione dei dati che un comando mostra; NO_CACHE se la risposta
+     * non dipende solo da dati versionati (es. fallback sull'API)
+     */
+    @FunctionalInterface
+    public interface DataVersion {
+        long of(CommandRouter.Context ctx);
+    }
+
+    public static final long NO_CACHE = -1;
+
+    // Il giorno fa parte della chiave: "oggi", "settimana" e le date relative cambiano a mezzanotte
+    private record Key(String command, Integer leagueId, List<Integer> teamIds, String text, long version, long day) {}
+
+    private static final int MAX_ENTRIES = Config.getReplyCacheMaxEntries();
+
+    // LinkedHashMap in access-order, come ResponseCache: la risposta meno usata viene rimossa per prima
+    private static final Map<Key, String> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            if (size() > MAX_ENTRIES) {
+                EVICTIONS.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    /**
+     * Middleware: risponde dalla cache se la versione dei dati non è cambiata, altrimenti
+     * esegue il comando e ne salva la risposta (non gli errori, che possono essere temporanei)
+     */
+    public static CommandRouter.Middleware cached(DataVersion dataVersion) {
+        return (ctx, next) -> {
+            if (MAX_ENTRIES <= 0) return next.handle(ctx);
+            long version = dataVersion.of(ctx);
+            if (version == NO_CACHE) return next.handle(ctx);
+
+            Key key = new Key(ctx.command(), ctx.leagueId(), ctx.teamIds(), ctx.text(), version,
+                    LocalDate.now(Config.getZoneId()).toEpochDay());
+            String reply;
+            synchronized (CACHE) {
+                reply = CACHE.get(key);
+            }
+            if (reply != null) {
+                HITS.incrementAndGet();
+                return reply;
+            }
+
+            MISSES.incrementAndGet();
+            reply = next.handle(ctx);
+            if (reply != null && !reply.startsWith("❌")) {
+                synchronized (CACHE) {
+                    CACHE.put(key, reply);
+                }
+            }
+            return reply;
+        };
+    }
+
+    public static int size() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    public static long getEvictions() {
+        return EVICTIONS.get();
+    }
+
+    public static String describeStats() {
+        long hits = HITS.get();
+        long total = hits + MISSES.get();
+        double ratio = total == 0 ? 0 : (double) hits / total;
+        return String.format("entries=%d hits=%d misses=%d evictions=%d hitRatio=%.2f",
+                size(), hits, MISSES.get(), EVICTIONS.get(), ratio);
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.footballbot;
+
+import com.google.gson.Gson;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ResponseCache {
+
+    /**
+     * Classi di endpoint con durata diversa: anagrafiche quasi statiche,
+     * classifiche che cambiano ad ogni giornata, liste partite che cambiano in diretta
+     */
+    public enum EndpointClass { STATIC, STANDINGS, MATCHES }
+
+    // value è il risultato già analizzato (record di JsonStreams), non il JSON grezzo;
+    // etag e lastModified servono per le richieste condizionali quando la voce scade
+    private record Entry(Object value, String parser, String etag, String lastModified, long storedAt, long expiresAt) {
+        boolean isFresh(long now) {
+            return now < expiresAt;
+        }
+    }
+
+    // Stesso endpoint letto con parser diversi (es. RAW e MATCHES): voci distinte
+    private record Key(String parser, String endpoint) {}
+
+    /**
+     * Validatori HTTP di una risposta salvata (ETag / Last-Modified), anche null
+     */
+    public record Validators(String etag, String lastModified) {}
+
+    private static final Gson GSON = new Gson();
+
+    private static final int MAX_ENTRIES = Config.getCacheMaxEntries();
+
+    // LinkedHashMap in access-order: l'elemento meno usato di recente viene rimosso per primo
+    // Le voci scadute restano finché non vengono espulse, così possono servire come fallback
+    private static final Map<Key, Entry> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > MAX_ENTRIES) {
+                EVICTIONS.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    /**
+     * Restituisce la risposta in cache se ancora valida, altrimenti null
+     */
+    public static <T> T get(String endpoint, JsonStreams.Parser<T> parser) {
+        T value = peek(endpoint, parser);
+        if (value != null) {
+            HITS.incrementAndGet();
+        } else {
+            MISSES.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Come get, ma senza aggiornare i contatori (per i controlli ripetuti)
+     */
+    static <T> T peek(String endpoint, JsonStreams.Parser<T> parser) {
+        Entry entry;
+        synchronized (CACHE) {
+            entry = CACHE.get(new Key(parser.name(), endpoint));
+        }
+        if (entry != null && entry.isFresh(System.currentTimeMillis())) {
+            return parser.type().cast(entry.value());
+        }
+        return null;
+    }
+
+    /**
+     * Restituisce la risposta in cache anche se scaduta (null se mai salvata)
+     */
+    public static <T> T getStale(String endpoint, JsonStreams.Parser<T> parser) {
+        synchronized (CACHE) {
+            Entry entry = CACHE.get(new Key(parser.name(), endpoint));
+            return entry != null ? parser.type().cast(entry.value()) : null;
+        }
+    }
+
+    public static void put(String endpoint, JsonStreams.Parser<?> parser, Object value, String etag, String lastModified) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(value, parser.name(), etag, lastModified, now, now + ttlMillis(endpoint));
+        synchronized (CACHE) {
+            CACHE.put(new Key(parser.name(), endpoint), entry);
+        }
+        if (Config.isApiCachePersistent()) {
+            DatabaseHelper.saveApiCacheEntry(endpoint, parser.name(), value, etag, lastModified, now, entry.expiresAt());
+        }
+    }
+
+    /**
+     * Validatori della voce salvata, o null se non ce ne sono
+     */
+    public static Validators validators(String endpoint, JsonStreams.Parser<?> parser) {
+        synchronized (CACHE) {
+            Entry entry = CACHE.get(new Key(parser.name(), endpoint));
+            if (entry == null || (entry.etag() == null && entry.lastModified() == null)) return null;
+            return new Validators(entry.etag(), entry.lastModified());
+        }
+    }
+
+    /**
+     * L'API ha risposto 304 Not Modified: la voce torna valida per un altro TTL
+     */
+    public static <T> T revalidated(String endpoint, JsonStreams.Parser<T> parser) {
+        long now = System.currentTimeMillis();
+        Key key = new Key(parser.name(), endpoint);
+        Entry renewed;
+        synchronized (CACHE) {
+            Entry entry = CACHE.get(key);
+            if (entry == null) return null;
+            renewed = new Entry(entry.value(), entry.parser(), entry.etag(), entry.lastModified(), now, now + ttlMillis(endpoint));
+            CACHE.put(key, renewed);
+        }
+        if (Config.isApiCachePersistent()) {
+            DatabaseHelper.touchApiCacheEntry(endpoint, parser.name(), now, renewed.expiresAt());
+        }
+        return parser.type().cast(renewed.value());
+    }
+
+    /**
+     * Ricarica in memoria le risposte salvate su disco (all'avvio).
+     * Anche le voci scadute sono utili: fanno da fallback e si rinnovano con una richiesta condizionale.
+     *
+     * @return numero di voci caricate
+     */
+    public static int warmFromDisk() {
+        if (!Config.isApiCachePersistent()) return 0;
+
+        long start = System.nanoTime();
+        List<DatabaseHelper.ApiCacheRow> rows = DatabaseHelper.loadApiCache(MAX_ENTRIES);
+        int loaded = 0;
+        // Dalla più vecchia alla più recente, così l'ordine LRU rispecchia quello di scaricamento
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            DatabaseHelper.ApiCacheRow row = rows.get(i);
+            JsonStreams.Parser<?> parser = JsonStreams.parserByName(row.parser());
+            if (parser == null) continue;
+            try {
+                Object value = GSON.fromJson(row.payload(), parser.type());
+                if (value == null) continue;
+                synchronized (CACHE) {
+                    CACHE.put(new Key(parser.name(), row.endpoint()), new Entry(value, parser.name(), row.etag(), row.lastModified(),
+                            row.fetchedAt(), row.expiresAt()));
+                }
+                loaded++;
+            } catch (RuntimeException e) {
+                System.err.println("❌ Cache su disco non valida per " + row.endpoint());
+            }
+        }
+        System.out.printf("💾 ResponseCache: %d risposte caricate dal disco in %.1f ms%n",
+                loaded, (System.nanoTime() - start) / 1e6);
+        return loaded;
+    }
+
+    /**
+     * Serializzazione compatta dei record per la cache su disco
+     */
+    static String toPayload(Object value) {
+        return GSON.toJson(value);
+    }
+
+    /** Rimuove le risposte di un endpoint, per tutti i parser */
+    public static void invalidate(String endpoint) {
+        synchronized (CACHE) {
+            CACHE.keySet().removeIf(key -> key.endpoint().equals(endpoint));
+        }
+    }
+
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * Classifica un endpoint in base al path
+     */
+    static EndpointClass classify(String endpoint) {
+        if (endpoint.contains("/standings")) return EndpointClass.STANDINGS;
+        if (endpoint.contains("/matches")) {
+            // Le partite già terminate non cambiano più: basta la durata delle classifiche
+            return endpoint.contains("status=FINISHED") ? EndpointClass.STANDINGS : EndpointClass.MATCHES;
+        }
+        return EndpointClass.STATIC;
+    }
+
+    static long ttlMillis(String endpoint) {
+        return switch (classify(endpoint)) {
+            case STATIC -> Config.getCacheTtlStaticSeconds() * 1000L;
+            case STANDINGS -> Config.getCacheTtlStandingsSeconds() * 1000L;
+            case MATCHES -> Config.getCacheTtlMatchesSeconds() * 1000L;
+        };
+    }
+
+    public static int size() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    public static long getEvictions() {
+        return EVICTIONS.get();
+    }
+
+    public static String describeStats() {
+        long hits = HITS.get();
+        long total = hits + MISSES.get();
+        double ratio = total == 0 ? 0 : (double) hits / total;
+        return String.format("entries=%d hits=%d misses=%d evictions=%d hitRatio=%.2f",
+                size(), hits, MISSES.get(), EVICTIONS.get(), ratio);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.footballbot;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Deduplica le chiamate concorrenti con la stessa chiave: il primo chiamante
+ * esegue il lavoro, gli altri attendono e ricevono lo stesso risultato
+ */
+public class SingleFlight<T> {
+
+    private final ConcurrentHashMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+
+    public T run(String key, Supplier<T> loader) {
+        CompletableFuture<T> mine = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            // Un'altra richiesta identica è già in corso: ne condividiamo l'esito
+            shared.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                if (e.getCause() instanceof Error err) throw err;
+                throw e;
+            }
+        }
+
+        executed.incrementAndGet();
+        try {
+            T value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Anche gli Error (OOM, StackOverflow): chi attende non deve restare bloccato
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    public long getShared() {
+        return shared.get();
+    }
+}
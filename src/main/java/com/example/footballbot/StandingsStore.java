@@ -0,0 +1,194 @@
+package com.example.footballbot;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classifiche in memoria, una per competizione, condivise da /topteams, /relegation
+ * e da ogni altro comando che mostra la tabella. Ogni classifica viene scaricata e
+ * analizzata una sola volta; quando scade viene aggiornata in background mentre
+ * i comandi continuano a usare la versione precedente.
+ */
+public class StandingsStore {
+
+    public static final int FORM_LENGTH = 5;
+
+    /**
+     * Classifica compatta e immutabile: una riga per squadra, colonne come array primitivi
+     */
+    public static final class Standings {
+        private final int competitionId;
+        private final long version;
+        private final long fetchedAt;
+        private final int[] positions;
+        private final int[] teamIds;
+        private final String[] teamNames;
+        private final int[] playedGames;
+        private final int[] points;
+        private final int[] goalDifference;
+        // Ultimi risultati: FORM_LENGTH byte per squadra ('W', 'D', 'L' oppure 0)
+        private final byte[] form;
+
+        private Standings(int competitionId, long version, long fetchedAt, int[] positions, int[] teamIds,
+                          String[] teamNames, int[] playedGames, int[] points, int[] goalDifference, byte[] form) {
+            this.competitionId = competitionId;
+            this.version = version;
+            this.fetchedAt = fetchedAt;
+            this.positions = positions;
+            this.teamIds = teamIds;
+            this.teamNames = teamNames;
+            this.playedGames = playedGames;
+            this.points = points;
+            this.goalDifference = goalDifference;
+            this.form = form;
+        }
+
+        public int competitionId() { return competitionId; }
+        public long version() { return version; }
+        public long fetchedAt() { return fetchedAt; }
+        public int size() { return positions.length; }
+        public boolean isEmpty() { return positions.length == 0; }
+        public int position(int row) { return positions[row]; }
+        public int teamId(int row) { return teamIds[row]; }
+        public String teamName(int row) { return teamNames[row]; }
+        public int playedGames(int row) { return playedGames[row]; }
+        public int points(int row) { return points[row]; }
+        public int goalDifference(int row) { return goalDifference[row]; }
+
+        /**
+         * Risultato n-esimo della forma recente ('W', 'D', 'L') oppure 0 se non disponibile
+         */
+        public char form(int row, int n) {
+            return (char) form[row * FORM_LENGTH + n];
+        }
+
+        boolean isStale(long now) {
+            return now - fetchedAt > Config.getCacheTtlStandingsSeconds() * 1000L;
+        }
+
+        boolean sameDataAs(Standings other) {
+            return other != null
+                    && Arrays.equals(positions, other.positions)
+                    && Arrays.equals(teamIds, other.teamIds)
+                    && Arrays.equals(playedGames, other.playedGames)
+                    && Arrays.equals(points, other.points)
+                    && Arrays.equals(goalDifference, other.goalDifference)
+                    && Arrays.equals(form, other.form);
+        }
+
+        private Standings withFetchedAt(long when) {
+            return new Standings(competitionId, version, when, positions, teamIds, teamNames,
+                    playedGames, points, goalDifference, form);
+        }
+    }
+
+    private static final ConcurrentHashMap<Integer, Standings> SNAPSHOTS = new ConcurrentHashMap<>();
+    private static final SingleFlight<Standings> LOADS = new SingleFlight<>();
+    private static final Set<Integer> REFRESHING = ConcurrentHashMap.newKeySet();
+    private static final ExecutorService REFRESHER = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Versione crescente dei dati: cambia solo quando la classifica cambia davvero
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /**
+     * Classifica di una competizione: dalla memoria se presente (avviando un aggiornamento
+     * in background se scaduta), altrimenti scaricata subito. Null se non disponibile.
+     */
+    public static Standings get(int competitionId) {
+        Standings current = SNAPSHOTS.get(competitionId);
+        if (current == null) {
+            return load(competitionId, RateLimiter.Priority.INTERACTIVE, false);
+        }
+        if (current.isStale(System.currentTimeMillis())) {
+            refreshAsync(competitionId);
+        }
+        return current;
+    }
+
+    /** Classifica già in memoria, senza caricarla né aggiornarla. Null se non c'è. */
+    public static Standings peek(int competitionId) {
+        return SNAPSHOTS.get(competitionId);
+    }
+
+    /**
+     * Riscarica subito la classifica dall'API, anche se quella in cache è ancora valida
+     * (usato dai pre-caricamenti)
+     */
+    public static Standings refresh(int competitionId, RateLimiter.Priority priority) {
+        return load(competitionId, priority, true);
+    }
+
+    public static void refreshAsync(int competitionId) {
+        if (!REFRESHING.add(competitionId)) return;
+        REFRESHER.execute(() -> {
+            try {
+                load(competitionId, RateLimiter.Priority.BACKGROUND, false);
+            } finally {
+                REFRESHING.remove(competitionId);
+            }
+        });
+    }
+
+    private static Standings load(int competitionId, RateLimiter.Priority priority, boolean force) {
+        return LOADS.run(String.valueOf(competitionId), () -> {
+            String endpoint = FootballApi.standingsPath(competitionId);
+            JsonStreams.StandingsTable table = force
+                    ? FootballApi.refresh(endpoint, JsonStreams.STANDINGS, priority)
+                    : FootballApi.fetch(endpoint, JsonStreams.STANDINGS, priority);
+            Standings parsed = table != null ? build(competitionId, table) : null;
+            if (parsed == null) {
+                // Aggiornamento fallito: resta valida la classifica precedente
+                return SNAPSHOTS.get(competitionId);
+            }
+            return SNAPSHOTS.merge(competitionId, parsed, (old, fresh) ->
+                    fresh.sameDataAs(old) ? old.withFetchedAt(fresh.fetchedAt()) : fresh);
+        });
+    }
+
+    /**
+     * Converte le righe lette da /competitions/{id}/standings nelle colonne compatte
+     */
+    static Standings build(int competitionId, JsonStreams.StandingsTable table) {
+        List<JsonStreams.StandingRow> rows = table.rows();
+        int n = rows.size();
+        int[] positions = new int[n];
+        int[] teamIds = new int[n];
+        String[] teamNames = new String[n];
+        int[] playedGames = new int[n];
+        int[] points = new int[n];
+        int[] goalDifference = new int[n];
+        byte[] form = new byte[n * FORM_LENGTH];
+
+        for (int i = 0; i < n; i++) {
+            JsonStreams.StandingRow row = rows.get(i);
+            positions[i] = row.position();
+            teamIds[i] = row.teamId();
+            teamNames[i] = row.teamName();
+            playedGames[i] = row.playedGames();
+            points[i] = row.points();
+            goalDifference[i] = row.goalDifference();
+
+            // Formato API: "W,D,L,W,W" (dal più recente)
+            String results = row.form();
+            if (results != null) {
+                int k = 0;
+                for (int c = 0; c < results.length() && k < FORM_LENGTH; c++) {
+                    char r = results.charAt(c);
+                    if (r != ',') form[i * FORM_LENGTH + k++] = (byte) r;
+                }
+            }
+        }
+
+        return new Standings(competitionId, VERSIONS.incrementAndGet(), System.currentTimeMillis(),
+                positions, teamIds, teamNames, playedGames, points, goalDifference, form);
+    }
+
+    public static int size() {
+        return SNAPSHOTS.size();
+    }
+}
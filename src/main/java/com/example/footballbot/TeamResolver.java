@@ -1,81 +1,366 @@
 package com.example.footballbot;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
-import java.util.HashMap;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 public class TeamResolver {
 
-    // Cache per non richiamare l'API ogni volta
-    // Chiave: "nome_normalizzato" o "nome_normalizzato_leagueId"
-    private static final Map<String, Integer> TEAM_CACHE = new HashMap<>();
+    /**
+     * Squadra come arriva da /competitions/{id}/teams
+     * (displayName e venue originali, gli altri campi normalizzati)
+     */
+    private record TeamEntry(int id, String displayName, String name, String shortName, String tla, String venue) {}
 
-    // Tiene traccia delle leghe già caricate
-    private static final Map<Integer, Boolean> LOADED_LEAGUES = new HashMap<>();
+    /**
+     * Stadio trovato da /stadium con la squadra che ci gioca
+     */
+    public record StadiumMatch(String venue, String teamName, int teamId) {}
+
+    /**
+     * Indice immutabile delle squadre: non viene mai modificato, ad ogni caricamento
+     * ne viene costruito uno nuovo e sostituito in blocco. I lettori non prendono lock.
+     * Ogni squadra è un solo TeamEntry (anche se gioca in più competizioni), le leghe
+     * tengono solo gli id e le mappe hanno chiavi int, senza Integer né Map.Entry.
+     *
+     * @param leagueOrder   leghe caricate: prima le principali, poi le altre, in ordine di caricamento
+     * @param teamIdsByLeague id delle squadre di ogni lega
+     * @param byLeague      indice dei nomi per ogni lega
+     * @param global        indice dei nomi di tutte le leghe
+     * @param venues        indice degli stadi di tutte le leghe (stadio normalizzato -> id squadra)
+     * @param teamsById     squadre per id
+     */
+    private record TeamIndex(int[] leagueOrder,
+                             IntMap<int[]> teamIdsByLeague,
+                             IntMap<NameIndex> byLeague,
+                             NameIndex global,
+                             NameIndex venues,
+                             IntMap<TeamEntry> teamsById) {
+        static final TeamIndex EMPTY = new TeamIndex(new int[0], new IntMap<>(), new IntMap<>(),
+                NameIndex.empty(), NameIndex.empty(), new IntMap<>());
+    }
+
+    // Soprannomi comuni non presenti nei dati dell'API: alias -> nome normalizzato della squadra
+    private static final Map<String, List<String>> ALIASES = Map.of(
+            "manchester united fc", List.of("man utd", "man u", "united"),
+            "manchester city fc", List.of("man city", "city"),
+            "fc internazionale milano", List.of("inter", "internazionale"),
+            "tottenham hotspur fc", List.of("spurs"),
+            "fc barcelona", List.of("barca"),
+            "paris saintgermain fc", List.of("psg"),
+            "fc bayern munchen", List.of("bayern"),
+            "juventus fc", List.of("juve"),
+            "wolverhampton wanderers fc", List.of("wolves"),
+            "borussia monchengladbach", List.of("gladbach")
+    );
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}");
+    private static final Pattern NOT_ALPHANUMERIC = Pattern.compile("[^a-z0-9 ]");
+
+    private static volatile TeamIndex index = TeamIndex.EMPTY;
+
+    // Serializza solo le pubblicazioni di un nuovo indice
+    private static final Object PUBLISH_LOCK = new Object();
+
+    // Leghe caricate o in caricamento: ogni lega viene scaricata una sola volta,
+    // chi arriva mentre il caricamento è in corso attende lo stesso risultato
+    private static final ConcurrentHashMap<Integer, CompletableFuture<Boolean>> LOADED_LEAGUES = new ConcurrentHashMap<>();
+
+    // Leghe il cui caricamento è fallito da poco: fino a questo istante (nanoTime)
+    // le ricerche globali usano le altre leghe invece di ritentare subito
+    private static final ConcurrentHashMap<Integer, Long> RETRY_AFTER = new ConcurrentHashMap<>();
+    private static final long RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    // Ultima ricerca in ogni lega (nanoTime): le competizioni non principali ferme da
+    // troppo tempo, o oltre il numero massimo, vengono tolte dall'indice
+    private static final ConcurrentHashMap<Integer, Long> LAST_USED = new ConcurrentHashMap<>();
+
+    // Caricamenti paralleli delle leghe (le chiamate HTTP passano comunque dal rate limiter)
+    private static final ExecutorService LOADERS = Executors.newVirtualThreadPerTaskExecutor();
 
     /**
      * Carica tutte le squadre di una lega specifica
      */
     public static void loadTeams(int leagueId) {
-        if (LOADED_LEAGUES.getOrDefault(leagueId, false)) {
-            System.out.println("⏭️ TeamResolver: lega " + leagueId + " già caricata");
-            return;
+        loadTeams(leagueId, RateLimiter.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Carica tutte le squadre di una lega con la priorità indicata
+     *
+     * @return true se la lega è (ora) caricata
+     */
+    public static boolean loadTeams(int leagueId, RateLimiter.Priority priority) {
+        CompletableFuture<Boolean> mine = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = LOADED_LEAGUES.putIfAbsent(leagueId, mine);
+        if (existing != null) {
+            if (existing.isDone()) {
+                System.out.println("⏭️ TeamResolver: lega " + leagueId + " già caricata");
+            }
+            return existing.join();
+        }
+
+        boolean loaded = false;
+        try {
+            loaded = fetchAndPublish(leagueId, priority, false);
+        } finally {
+            // Se il caricamento fallisce la lega potrà essere ritentata (dopo una pausa);
+            // le leghe già caricate restano valide
+            if (loaded) {
+                RETRY_AFTER.remove(leagueId);
+            } else {
+                RETRY_AFTER.put(leagueId, System.nanoTime() + RETRY_BACKOFF_NANOS);
+                LOADED_LEAGUES.remove(leagueId, mine);
+            }
+            mine.complete(loaded);
         }
+        return loaded;
+    }
 
-        String json = FootballApi.makeRequest("/competitions/" + leagueId + "/teams");
-        if (json == null) {
+    /**
+     * Riscarica le squadre di una lega e sostituisce atomicamente l'indice
+     */
+    public static void refreshLeague(int leagueId) {
+        if (fetchAndPublish(leagueId, RateLimiter.Priority.BACKGROUND, true)) {
+            LOADED_LEAGUES.put(leagueId, CompletableFuture.completedFuture(true));
+            RETRY_AFTER.remove(leagueId);
+        }
+    }
+
+    private static boolean fetchAndPublish(int leagueId, RateLimiter.Priority priority, boolean force) {
+        String endpoint = FootballApi.teamsPath(leagueId);
+        JsonStreams.TeamList teams = force
+                ? FootballApi.refresh(endpoint, JsonStreams.TEAMS, priority)
+                : FootballApi.fetch(endpoint, JsonStreams.TEAMS, priority);
+        if (teams == null) {
             System.err.println("❌ TeamResolver: nessuna risposta per lega " + leagueId);
-            return;
+            return false;
         }
 
-        try {
-            JsonArray teams = JsonParser.parseString(json)
-                    .getAsJsonObject()
-                    .getAsJsonArray("teams");
-
-            for (int i = 0; i < teams.size(); i++) {
-                JsonObject t = teams.get(i).getAsJsonObject();
-                int id = t.get("id").getAsInt();
-                String name = normalize(t.get("name").getAsString());
-
-                // Salva con chiave composta: "nome_leagueId" per ricerca specifica
-                String keyWithLeague = name + "_" + leagueId;
-                TEAM_CACHE.put(keyWithLeague, id);
-
-                // Salva anche senza lega per ricerca globale (solo se non esiste già)
-                if (!TEAM_CACHE.containsKey(name)) {
-                    TEAM_CACHE.put(name, id);
-                }
+        int count = publishTeams(leagueId, teams);
+        System.out.printf("✅ TeamResolver: caricate %d squadre per lega %d (~%.1f KB)%n",
+                count, leagueId, leagueBytes(index, leagueId) / 1024.0);
+        return true;
+    }
+
+    /**
+     * Indicizza le squadre già scaricate di una lega e la segna come caricata
+     * (usato anche dai benchmark per lavorare su dati registrati)
+     */
+    static void installTeams(int leagueId, JsonStreams.TeamList teams) {
+        publishTeams(leagueId, teams);
+        LOADED_LEAGUES.put(leagueId, CompletableFuture.completedFuture(true));
+        RETRY_AFTER.remove(leagueId);
+    }
+
+    private static int publishTeams(int leagueId, JsonStreams.TeamList teams) {
+        List<TeamEntry> leagueTeams = new ArrayList<>(teams.teams().size());
+        for (JsonStreams.Team t : teams.teams()) {
+            if (t.name() == null) continue;
+            // Stringhe internate: nomi e stadi ripetuti (squadre in più competizioni,
+            // stadi condivisi, ricaricamenti) occupano memoria una volta sola
+            leagueTeams.add(new TeamEntry(
+                    t.id(),
+                    t.name().intern(),
+                    normalize(t.name()).intern(),
+                    normalize(t.shortName()).intern(),
+                    normalize(t.tla()).intern(),
+                    t.venue() != null ? t.venue().intern() : ""));
+        }
+
+        publish(leagueId, leagueTeams);
+        return leagueTeams.size();
+    }
+
+    /**
+     * Costruisce un nuovo indice con la lega aggiornata e lo rende visibile ai lettori
+     */
+    private static void publish(int leagueId, List<TeamEntry> leagueTeams) {
+        synchronized (PUBLISH_LOCK) {
+            LAST_USED.put(leagueId, System.nanoTime());
+            rebuild(leagueId, leagueTeams);
+        }
+    }
+
+    /**
+     * Toglie dall'indice le competizioni non principali rimaste inutilizzate
+     * (ricaricate alla prossima ricerca, di solito dalla cache delle risposte)
+     */
+    public static void evictColdLeagues() {
+        synchronized (PUBLISH_LOCK) {
+            rebuild(null, null);
+        }
+    }
+
+    /**
+     * Nuovo indice: le leghe già presenti riusano id e indici dei nomi, cambiano solo
+     * la lega indicata (se c'è) e le strutture globali. Chiamato con PUBLISH_LOCK.
+     */
+    private static void rebuild(Integer leagueId, List<TeamEntry> leagueTeams) {
+        TeamIndex old = index;
+        List<Integer> evicted = coldLeagues(old, leagueId);
+
+        List<Integer> order = new ArrayList<>();
+        for (int id : old.leagueOrder()) {
+            if (leagueId == null || id != leagueId) order.add(id);
+        }
+        if (leagueId != null) order.add(leagueId);
+        order.removeAll(evicted);
+        // Ordinamento stabile: a parità di nome, nella ricerca globale vincono le leghe principali
+        order.sort(Comparator.comparing(id -> !LeagueResolver.isCoreLeague(id)));
+
+        IntMap<int[]> teamIdsByLeague = new IntMap<>(order.size());
+        IntMap<NameIndex> byLeague = new IntMap<>(order.size());
+        IntMap<TeamEntry> teamsById = new IntMap<>(old.teamsById().size() + 64);
+        for (int id : order) {
+            int[] ids;
+            if (leagueId != null && id == leagueId) {
+                ids = new int[leagueTeams.size()];
+                for (int i = 0; i < ids.length; i++) ids[i] = leagueTeams.get(i).id();
+                byLeague.put(id, buildNameIndex(leagueTeams));
+            } else {
+                ids = old.teamIdsByLeague().get(id);
+                byLeague.put(id, old.byLeague().get(id));
+            }
+            teamIdsByLeague.put(id, ids);
+        }
+
+        // I dati appena scaricati sostituiscono quelli vecchi della stessa squadra
+        IntMap<TeamEntry> fresh = new IntMap<>(leagueTeams != null ? leagueTeams.size() : 0);
+        if (leagueTeams != null) {
+            for (TeamEntry t : leagueTeams) fresh.put(t.id(), t);
+        }
+        List<TeamEntry> all = new ArrayList<>();
+        for (int id : order) {
+            for (int teamId : teamIdsByLeague.get(id)) {
+                if (teamsById.containsKey(teamId)) continue;
+                TeamEntry t = fresh.get(teamId);
+                if (t == null) t = old.teamsById().get(teamId);
+                teamsById.put(teamId, t);
+                all.add(t);
             }
+        }
 
-            LOADED_LEAGUES.put(leagueId, true);
-            System.out.println("✅ TeamResolver: caricate " + teams.size() + " squadre per lega " + leagueId);
+        NameIndex.Builder venues = NameIndex.builder();
+        for (TeamEntry t : all) {
+            venues.add(normalize(t.venue()), t.id(), false);
+        }
 
-        } catch (Exception e) {
-            System.err.println("❌ Errore TeamResolver per lega " + leagueId);
-            e.printStackTrace();
+        index = new TeamIndex(order.stream().mapToInt(Integer::intValue).toArray(),
+                teamIdsByLeague, byLeague, buildNameIndex(all), venues.build(), teamsById);
+
+        for (int id : evicted) {
+            // Solo il caricamento concluso: un loadTeams in corso resta l'unico per quella lega
+            CompletableFuture<Boolean> state = LOADED_LEAGUES.get(id);
+            if (state != null && state.isDone()) LOADED_LEAGUES.remove(id, state);
+            LAST_USED.remove(id);
+        }
+        if (!evicted.isEmpty()) {
+            System.out.println("🧹 TeamResolver: scaricate le competizioni inutilizzate " + evicted);
         }
     }
 
     /**
-     * Carica tutte le squadre di tutte le leghe disponibili
+     * Competizioni non principali da togliere: quelle ferme da più di TEAM_IDLE_MINUTES
+     * e, oltre TEAM_MAX_COMPETITIONS, le meno usate di recente
      */
-    public static void loadAllTeams() {
-        System.out.println("🔄 Caricamento di tutte le squadre...");
+    private static List<Integer> coldLeagues(TeamIndex old, Integer incoming) {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MINUTES.toNanos(Config.getTeamIdleMinutes());
 
-        // Ottiene tutti gli ID delle leghe disponibili
-        for (String leagueName : LeagueResolver.getAllLeagueNames()) {
-            Integer leagueId = LeagueResolver.resolveLeagueId(leagueName);
-            if (leagueId != null) {
-                loadTeams(leagueId);
+        List<Integer> candidates = new ArrayList<>();
+        for (int id : old.leagueOrder()) {
+            if ((incoming != null && id == incoming) || LeagueResolver.isCoreLeague(id)) continue;
+            // Mai una lega il cui caricamento è ancora in corso
+            CompletableFuture<Boolean> state = LOADED_LEAGUES.get(id);
+            if (state != null && !state.isDone()) continue;
+            candidates.add(id);
+        }
+        // Dalla meno usata di recente
+        candidates.sort(Comparator.comparingLong((Integer id) -> now - LAST_USED.getOrDefault(id, now)).reversed());
+
+        int kept = candidates.size() + (incoming != null && !LeagueResolver.isCoreLeague(incoming) ? 1 : 0);
+        int excess = kept - Math.max(1, Config.getTeamMaxCompetitions());
+        List<Integer> evicted = new ArrayList<>();
+        for (int id : candidates) {
+            if (excess > 0 || now - LAST_USED.getOrDefault(id, now) > idleNanos) {
+                evicted.add(id);
+                excess--;
             }
         }
+        return evicted;
+    }
+
+    private static NameIndex buildNameIndex(List<TeamEntry> teams) {
+        NameIndex.Builder builder = NameIndex.builder();
+        for (TeamEntry t : teams) {
+            builder.add(t.name(), t.id(), false);
+        }
+        // Gli alias dopo i nomi: a parità di chiave vince il nome ufficiale
+        for (TeamEntry t : teams) {
+            builder.add(t.shortName(), t.id(), true);
+            builder.add(t.tla(), t.id(), true);
+            for (String alias : ALIASES.getOrDefault(t.name(), List.of())) {
+                builder.add(alias, t.id(), true);
+            }
+        }
+        return builder.build();
+    }
 
-        System.out.println("✅ Caricate squadre da " + LOADED_LEAGUES.size() + " leghe");
+    /**
+     * Carica tutte le squadre di tutte le leghe disponibili (pre-caricamento:
+     * cede il passo ai comandi interattivi)
+     */
+    public static void loadAllTeams() {
+        loadAllTeams(RateLimiter.Priority.BACKGROUND);
+    }
+
+    /**
+     * Carica in parallelo le leghe non ancora caricate, ognuna su un virtual thread.
+     * Ogni lega viene pubblicata nell'indice appena arriva; quelle fallite vengono
+     * segnalate una per una e ritentate solo loro alla prossima chiamata.
+     *
+     * @return ID delle leghe che non è stato possibile caricare
+     */
+    public static List<Integer> loadAllTeams(RateLimiter.Priority priority) {
+        Map<Integer, CompletableFuture<Boolean>> loads = new LinkedHashMap<>();
+        for (Integer leagueId : LeagueResolver.getAllLeagueIds()) {
+            CompletableFuture<Boolean> state = LOADED_LEAGUES.get(leagueId);
+            if (state != null && state.isDone() && state.join()) continue;
+            loads.put(leagueId, CompletableFuture.supplyAsync(() -> loadTeams(leagueId, priority), LOADERS));
+        }
+        if (loads.isEmpty()) return List.of();
+
+        System.out.println("🔄 Caricamento squadre di " + loads.size() + " leghe in parallelo...");
+        List<Integer> failed = new ArrayList<>();
+        loads.forEach((leagueId, load) -> {
+            try {
+                if (!load.join()) failed.add(leagueId);
+            } catch (RuntimeException e) {
+                System.err.println("❌ TeamResolver: errore durante il caricamento della lega " + leagueId);
+                e.printStackTrace();
+                failed.add(leagueId);
+            }
+        });
+
+        if (failed.isEmpty()) {
+            System.out.println("✅ Caricate squadre da " + index.byLeague().size() + " leghe");
+        } else {
+            System.err.println("⚠️ Caricate squadre da " + index.byLeague().size() + " leghe, fallite: " + failed);
+        }
+        System.out.println(describeFootprint());
+        return failed;
     }
 
     /**
@@ -86,89 +371,201 @@ public class TeamResolver {
      * @return ID della squadra o null se non trovata
      */
     public static Integer resolveTeamId(String userInput, Integer leagueId) {
-        String input = normalize(userInput);
+        NameIndex.Match match = bestMatch(userInput, leagueId);
+        return match != null ? match.id() : null;
+    }
+
+    /**
+     * Squadre candidate per il nome indicato, dalla più probabile
+     */
+    public static List<Integer> searchTeamIds(String userInput, Integer leagueId, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        for (NameIndex.Match m : indexFor(leagueId).search(normalize(userInput), limit)) {
+            ids.add(m.id());
+        }
+        return ids;
+    }
+
+    private static NameIndex.Match bestMatch(String userInput, Integer leagueId) {
+        return indexFor(leagueId).best(normalize(userInput));
+    }
 
+    private static NameIndex indexFor(Integer leagueId) {
         // Se la lega è specificata, cerca solo in quella lega
         if (leagueId != null) {
-            // Carica la lega se non è già stata caricata
-            if (!LOADED_LEAGUES.getOrDefault(leagueId, false)) {
+            // Carica la lega se non è in memoria (o attende il caricamento in corso)
+            NameIndex names = index.byLeague().get(leagueId);
+            if (names == null) {
                 loadTeams(leagueId);
+                names = index.byLeague().get(leagueId);
             }
+            LAST_USED.put(leagueId, System.nanoTime());
+            return names != null ? names : NameIndex.empty();
+        }
 
-            // Match esatto con lega specifica
-            String keyWithLeague = input + "_" + leagueId;
-            if (TEAM_CACHE.containsKey(keyWithLeague)) {
-                return TEAM_CACHE.get(keyWithLeague);
-            }
+        // Nessuna lega specificata: cerca in tutte le leghe
+        ensureAllLeaguesLoaded();
+        return index.global();
+    }
 
-            // Match parziale nella lega specifica
-            for (Map.Entry<String, Integer> e : TEAM_CACHE.entrySet()) {
-                String key = e.getKey();
-                if (key.endsWith("_" + leagueId) && key.startsWith(input)) {
-                    return e.getValue();
-                }
-            }
+    private static void ensureAllLeaguesLoaded() {
+        long now = System.nanoTime();
+        for (Integer leagueId : LeagueResolver.getAllLeagueIds()) {
+            CompletableFuture<Boolean> state = LOADED_LEAGUES.get(leagueId);
+            if (state != null && state.isDone()) continue;
 
-            // Match parziale più permissivo (contiene)
-            for (Map.Entry<String, Integer> e : TEAM_CACHE.entrySet()) {
-                String key = e.getKey();
-                if (key.endsWith("_" + leagueId) && key.contains(input)) {
-                    return e.getValue();
-                }
-            }
-        } else {
-            // Nessuna lega specificata: cerca in tutte le leghe
-            if (LOADED_LEAGUES.isEmpty()) {
-                loadAllTeams();
-            }
+            // Lega fallita da poco: si cerca nelle altre invece di bloccare l'utente
+            Long retryAfter = RETRY_AFTER.get(leagueId);
+            if (state == null && retryAfter != null && now - retryAfter < 0) continue;
 
-            // Match esatto globale
-            if (TEAM_CACHE.containsKey(input)) {
-                return TEAM_CACHE.get(input);
-            }
+            // Un utente sta aspettando: priorità interattiva
+            loadAllTeams(RateLimiter.Priority.INTERACTIVE);
+            return;
+        }
+    }
 
-            // Match parziale globale (solo chiavi senza "_leagueId")
-            for (Map.Entry<String, Integer> e : TEAM_CACHE.entrySet()) {
-                String key = e.getKey();
-                if (!key.contains("_") && key.startsWith(input)) {
-                    return e.getValue();
-                }
-            }
+    /**
+     * Cerca uno stadio (anche con nome parziale o errori di battitura) tra tutte le leghe,
+     * usando il campo venue già scaricato con le squadre: nessuna chiamata per singola squadra
+     *
+     * @return le squadre che giocano nello stadio più simile, lista vuota se nessuno
+     */
+    public static List<StadiumMatch> findStadium(String stadiumName) {
+        ensureAllLeaguesLoaded();
+        TeamIndex snapshot = index;
 
-            // Match parziale più permissivo
-            for (Map.Entry<String, Integer> e : TEAM_CACHE.entrySet()) {
-                String key = e.getKey();
-                if (!key.contains("_") && key.contains(input)) {
-                    return e.getValue();
-                }
-            }
+        List<NameIndex.Match> matches = snapshot.venues().search(normalize(stadiumName), 10);
+        if (matches.isEmpty()) return List.of();
+
+        // Solo lo stadio migliore, con tutte le squadre che lo condividono (es. San Siro)
+        String bestVenue = matches.get(0).key();
+        List<StadiumMatch> result = new ArrayList<>();
+        for (NameIndex.Match m : matches) {
+            if (!m.key().equals(bestVenue)) continue;
+            TeamEntry team = snapshot.teamsById().get(m.id());
+            result.add(new StadiumMatch(team.venue(), team.displayName(), team.id()));
         }
+        return result;
+    }
 
-        return null;
+    /**
+     * Nome ufficiale di una squadra già caricata, o null
+     */
+    public static String getTeamName(int teamId) {
+        TeamEntry team = index.teamsById().get(teamId);
+        return team != null ? team.displayName() : null;
     }
 
     /**
      * Restituisce tutti i nomi delle squadre caricate
      */
     public static Set<String> getAllTeamNames() {
-        return TEAM_CACHE.keySet();
+        TeamIndex snapshot = index;
+        Set<String> names = new LinkedHashSet<>();
+        for (int leagueId : snapshot.leagueOrder()) {
+            for (int teamId : snapshot.teamIdsByLeague().get(leagueId)) {
+                names.add(snapshot.teamsById().get(teamId).name());
+            }
+        }
+        return names;
+    }
+
+    // --- Memoria ---
+
+    /**
+     * Memoria stimata di ogni competizione caricata (id, indice dei nomi e squadre
+     * che compaiono per la prima volta in quella competizione) e delle strutture comuni
+     */
+    public static String describeFootprint() {
+        TeamIndex snapshot = index;
+        if (snapshot.leagueOrder().length == 0) return "📦 Nessuna squadra in memoria.";
+
+        IntMap<long[]> perLeague = leagueBytes(snapshot);
+        StringBuilder sb = new StringBuilder("📦 Squadre in memoria (stima):\n");
+        long total = sharedBytes(snapshot);
+        for (int leagueId : snapshot.leagueOrder()) {
+            long bytes = perLeague.get(leagueId)[0];
+            total += bytes;
+            sb.append(String.format("• %s [%d]: %d squadre, %.1f KB%n",
+                    LeagueResolver.getLeagueName(leagueId), leagueId,
+                    snapshot.teamIdsByLeague().get(leagueId).length, bytes / 1024.0));
+        }
+        sb.append(String.format("Comuni (ricerca globale, stadi, id): %.1f KB%n", sharedBytes(snapshot) / 1024.0));
+        sb.append(String.format("Totale: %d competizioni, %d squadre, %.1f KB",
+                snapshot.leagueOrder().length, snapshot.teamsById().size(), total / 1024.0));
+        return sb.toString();
+    }
+
+    /** Memoria stimata di tutte le squadre in memoria, in byte */
+    public static long estimatedBytes() {
+        TeamIndex snapshot = index;
+        long total = sharedBytes(snapshot);
+        IntMap<long[]> perLeague = leagueBytes(snapshot);
+        for (int leagueId : snapshot.leagueOrder()) total += perLeague.get(leagueId)[0];
+        return total;
+    }
+
+    public static int getLoadedLeagueCount() {
+        return index.leagueOrder().length;
+    }
+
+    public static int getLoadedTeamCount() {
+        return index.teamsById().size();
+    }
+
+    private static long leagueBytes(TeamIndex snapshot, int leagueId) {
+        long[] bytes = leagueBytes(snapshot).get(leagueId);
+        return bytes != null ? bytes[0] : 0;
+    }
+
+    /**
+     * Byte di ogni lega; ogni squadra è contata una volta, nella prima lega (in ordine) che la contiene
+     */
+    private static IntMap<long[]> leagueBytes(TeamIndex snapshot) {
+        IntMap<long[]> result = new IntMap<>(snapshot.leagueOrder().length);
+        IntMap<Boolean> counted = new IntMap<>(snapshot.teamsById().size());
+        for (int leagueId : snapshot.leagueOrder()) {
+            int[] ids = snapshot.teamIdsByLeague().get(leagueId);
+            long bytes = NameIndex.arrayBytes(4, ids.length) + snapshot.byLeague().get(leagueId).estimatedBytes();
+            for (int teamId : ids) {
+                if (counted.put(teamId, Boolean.TRUE) != null) continue;
+                TeamEntry t = snapshot.teamsById().get(teamId);
+                bytes += 40 + NameIndex.stringBytes(t.displayName()) + NameIndex.stringBytes(t.name())
+                        + NameIndex.stringBytes(t.shortName()) + NameIndex.stringBytes(t.tla())
+                        + NameIndex.stringBytes(t.venue());
+            }
+            result.put(leagueId, new long[]{bytes});
+        }
+        return result;
+    }
+
+    private static long sharedBytes(TeamIndex snapshot) {
+        return snapshot.global().estimatedBytes() + snapshot.venues().estimatedBytes()
+                + snapshot.teamsById().estimatedBytes() + snapshot.teamIdsByLeague().estimatedBytes()
+                + snapshot.byLeague().estimatedBytes() + NameIndex.arrayBytes(4, snapshot.leagueOrder().length);
     }
 
     /**
      * Pulisce la cache (utile per test o refresh)
      */
     public static void clearCache() {
-        TEAM_CACHE.clear();
-        LOADED_LEAGUES.clear();
+        synchronized (PUBLISH_LOCK) {
+            index = TeamIndex.EMPTY;
+            LOADED_LEAGUES.clear();
+            RETRY_AFTER.clear();
+            LAST_USED.clear();
+        }
         System.out.println("🗑️ Cache TeamResolver pulita");
     }
 
     /**
      * Normalizzazione stringhe per matching case-insensitive
+     * (gli accenti vengono rimossi: "München" -> "munchen")
      */
-    private static String normalize(String s) {
-        return s.toLowerCase()
-                .replaceAll("[^a-z0-9 ]", "")
-                .trim();
+    static String normalize(String s) {
+        if (s == null) return "";
+        String decomposed = Normalizer.normalize(s.toLowerCase(), Normalizer.Form.NFD);
+        String withoutAccents = DIACRITICS.matcher(decomposed).replaceAll("");
+        return NOT_ALPHANUMERIC.matcher(withoutAccents).replaceAll("").trim();
     }
 }
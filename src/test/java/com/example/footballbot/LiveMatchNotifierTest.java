@@ -0,0 +1,40 @@
+package com.example.footballbot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LiveMatchNotifierTest {
+
+    private static JsonStreams.Match match(String status, Integer homeGoals, Integer awayGoals) {
+        return new JsonStreams.Match(1, 2021, "2024-08-16", "2024-10-05T14:00:00Z", status,
+                57, "Arsenal FC", 61, "Chelsea FC", homeGoals, awayGoals);
+    }
+
+    private static LiveMatchNotifier.MatchState state(String status, Integer homeGoals, Integer awayGoals) {
+        return LiveMatchNotifier.MatchState.of(match(status, homeGoals, awayGoals));
+    }
+
+    @Test
+    void kickoffFromNullScoreIsNotAGoal() {
+        String event = LiveMatchNotifier.describeChange(match("IN_PLAY", 0, 0), state("TIMED", null, null));
+        assertEquals("🟢 *Calcio d'inizio:* Arsenal FC vs Chelsea FC", event);
+    }
+
+    @Test
+    void goalIsReported() {
+        String event = LiveMatchNotifier.describeChange(match("IN_PLAY", 1, 0), state("IN_PLAY", 0, 0));
+        assertEquals("⚽ *GOL!* Arsenal FC 1-0 Chelsea FC", event);
+    }
+
+    @Test
+    void scoreCorrectionIsNotAGoal() {
+        assertNull(LiveMatchNotifier.describeChange(match("IN_PLAY", 1, 1), state("IN_PLAY", 2, 1)));
+    }
+
+    @Test
+    void unchangedMatchIsSilent() {
+        assertNull(LiveMatchNotifier.describeChange(match("IN_PLAY", 1, 0), state("IN_PLAY", 1, 0)));
+    }
+}